@@ -0,0 +1,90 @@
+package aqs;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>CAS 自旋的随机指数退避
+ * <p>CAS 失败后立即重试, 多个线程会在同一个缓存行上反复竞争, 占满核间总线, 失败率越高越糟糕
+ * <p>第 n 次失败后随机自旋 [0, 2^(n + shift)) 次再重试, 随机化使竞争者错开重试时间
+ * <p>shift 由观测到的 CAS 失败率决定: 竞争激烈时退避窗口更大, 没有竞争时 shift 衰减为 0
+ * <p>没有竞争时(第一次 CAS 就成功且失败率为 0)不会写任何共享变量, 不影响无竞争的快速路径; 失败率没有变化时也不写
+ * <p>new Backoff(false) 不退避, 立即重试, 作为对照
+ * <p>用法:
+ * <pre> {@code
+ * for (int failures = 0; ; failures = backoff.backoff(failures)) {
+ *     int c = getState();
+ *     if (compareAndSetState(c, c + 1)) {
+ *         backoff.onSuccess(failures);
+ *         return;
+ *     }
+ * }
+ * }</pre>
+ */
+public final class Backoff {
+
+    private static final int MAX_SHIFT = 10; // 最多自旋 2^10 次
+    private static final int SCALE     = 4;  // rate 的定点小数位数
+
+    /**
+     * CAS 连续失败次数的指数移动平均, 定点数, 取值范围 [0, MAX_SHIFT << SCALE]<br>
+     * 只是启发式的估计, 并发更新丢失也没有关系
+     */
+    private volatile int rate;
+
+    private final boolean enabled;
+
+    public Backoff() {
+        this(true);
+    }
+
+    /**
+     * enabled 为 false 时 backoff() 不自旋, onSuccess() 不记录失败率
+     */
+    public Backoff(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * CAS 失败后调用, 随机自旋后返回 failures + 1
+     */
+    public int backoff(int failures) {
+        if (!enabled) return failures + 1;
+        int shift = Math.min(failures + (rate >>> SCALE), MAX_SHIFT);
+        int spins = ThreadLocalRandom.current().nextInt(1 << shift);
+
+        // xorshift 随机数决定是否计数, 循环的退出依赖于 r, JIT 无法把这个循环消除
+        int r = spins | 1;
+        while (spins > 0) {
+            r ^= r << 6;
+            r ^= r >>> 21;
+            r ^= r << 7;
+            if (r >= 0) --spins;
+        }
+
+        // 退避窗口已经最大仍然失败, 让出 CPU 给持有缓存行的线程
+        if (failures >= MAX_SHIFT) Thread.yield();
+
+        return failures + 1;
+    }
+
+    /**
+     * CAS 成功(或者不需要 CAS)后调用, 更新失败率
+     */
+    public void onSuccess(int failures) {
+        if (!enabled) return;
+        int r = rate;
+        if (failures == 0 && r == 0) return; // 无竞争的快速路径
+
+        int target = Math.min(failures, MAX_SHIFT) << SCALE;
+        int next   = r + ((target - r) >> 2);
+        if (next == r && target < r) next = r - 1; // 保证能衰减到 0
+        if (next != r) rate = next; // 稳定竞争时失败率不变, 不写 volatile, 避免缓存行在核间来回失效
+    }
+
+    /**
+     * 当前估计的 CAS 连续失败次数
+     */
+    public double getContention() {
+        return (double) rate / (1 << SCALE);
+    }
+}
@@ -2,6 +2,7 @@ package aqs.lock;
 
 import aqs.AbstractQueuedSynchronizer;
 import aqs.AbstractQueuedSynchronizer.ConditionObject;
+import aqs.Backoff;
 import aqs.Condition;
 import sun.misc.Unsafe;
 
@@ -54,6 +55,7 @@ public class ReentrantReadWriteLock implements ReadWriteLock {
         private transient HoldCounter            cachedHoldCounter;    // 缓存的读锁计数器
         private transient Thread                 firstReader = null;   // 记录第一个拿到读锁的线程
         private transient int                    firstReaderHoldCount; // 记录 firstReader 获取读锁的次数
+        private final transient Backoff          backoff = new Backoff(); // CAS 失败后随机指数退避
 
         Sync() {
             readHolds = new ThreadLocalHoldCounter();
@@ -227,7 +229,7 @@ public class ReentrantReadWriteLock implements ReadWriteLock {
 
         final int fullTryAcquireShared(Thread current) {
             HoldCounter rh = null; // 缓存的读锁计数器
-            for (; ; ) {
+            for (int failures = 0; ; failures = backoff.backoff(failures)) {
                 int c = getState();
 
                 // w != 0 已加写锁, 看看加写锁的线程不是自己
@@ -291,8 +293,10 @@ public class ReentrantReadWriteLock implements ReadWriteLock {
                         rh.count++;
                         cachedHoldCounter = rh; // cache for release
                     }
+                    backoff.onSuccess(failures);
                     return 1; // 获取读锁成功
                 }
+                // CAS 失败, 退避后自旋
             }
         }
 
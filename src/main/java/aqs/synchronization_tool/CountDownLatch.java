@@ -1,6 +1,7 @@
 package aqs.synchronization_tool;
 
 import aqs.AbstractQueuedSynchronizer;
+import aqs.Backoff;
 
 import java.util.concurrent.TimeUnit;
 
@@ -8,6 +9,11 @@ public class CountDownLatch {
 
     private static final class Sync extends AbstractQueuedSynchronizer {
 
+        /**
+         * CAS 失败后随机指数退避
+         */
+        final Backoff backoff = new Backoff();
+
         Sync(int count) {
             setState(count);
         }
@@ -28,11 +34,14 @@ public class CountDownLatch {
          */
         protected boolean tryReleaseShared(int releases) {
             // Decrement count; signal when transition to zero
-            for (; ; ) {
+            for (int failures = 0; ; failures = backoff.backoff(failures)) {
                 int c = getState();
                 if (c == 0) return false;
                 int nextc = c - 1;
-                if (compareAndSetState(c, nextc)) return nextc == 0;
+                if (compareAndSetState(c, nextc)) {
+                    backoff.onSuccess(failures);
+                    return nextc == 0;
+                }
             }
         }
     }
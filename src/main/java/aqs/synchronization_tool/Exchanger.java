@@ -0,0 +1,259 @@
+package aqs.synchronization_tool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>两个线程交换对象的同步点, 参考 java.util.concurrent.Exchanger
+ * <p>低竞争: 使用单个 slot, 第一个到达的线程把自己的 Node 放入 slot 并等待, 第二个到达的线程取走 Node 并把自己的 item 写入 node.match
+ * <p>高竞争: slot CAS 失败时创建消除数组(elimination arena), 线程分散到 arena 的不同位置配对
+ * <p>arena 的有效范围 bound 在碰撞次数过多时扩大, 在等待超时时缩小
+ * <p>等待时先自旋 SPINS 次(期间偶尔 yield), 只有 slot OR arena[0] 上的等待者才会 park, 其它位置的等待者自旋后换位置重试
+ */
+public class Exchanger<V> {
+
+    /**
+     * 参与交换的线程, 每个线程一个, 保存在 ThreadLocal 中复用
+     */
+    private static final class Node {
+        int index;    // arena 下标
+        int bound;    // 上一次看到的 bound
+        int collides; // 当前 bound 下 CAS 失败次数
+        int hash;     // 自旋用的伪随机数
+
+        Object          item;   // 当前线程要交出的对象
+        volatile Object match;  // 对方线程交给当前线程的对象
+        volatile Thread parked; // park 时设置为当前线程
+    }
+
+    private static final class Participant extends ThreadLocal<Node> {
+        public Node initialValue() {
+            return new Node();
+        }
+    }
+
+    // =================================================================================================================
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * arena 中每个有效位置之间间隔 1 << ASHIFT 个引用, 避免伪共享
+     */
+    private static final int ASHIFT = 4;
+
+    /**
+     * bound 低 8 位是 arena 最大有效下标, 高位是版本号, 每次修改 bound 版本号 + 1
+     */
+    private static final int MMASK = 0xff;
+    private static final int SEQ   = MMASK + 1;
+
+    /**
+     * arena 最大有效下标, 最多 NCPU / 2 对线程同时交换
+     */
+    private static final int FULL = (NCPU >= (MMASK << 1)) ? MMASK : NCPU >>> 1;
+
+    /**
+     * 等待时自旋的次数, 自旋期间偶尔 yield
+     */
+    private static final int SPINS = 1 << 10;
+
+    /**
+     * 与 AQS.spinForTimeoutThreshold 相同, 剩余等待时间 <= 1000 ns 时自旋而不是 parkNanos()
+     */
+    private static final long spinForTimeoutThreshold = 1000L;
+
+    private static final Object NULL_ITEM = new Object(); // 代替 null item
+    private static final Object TIMED_OUT = new Object(); // 超时
+
+    // =================================================================================================================
+
+    private final Participant participant = new Participant();
+
+    private final    AtomicReference<Node>      slot  = new AtomicReference<>();
+    private volatile AtomicReferenceArray<Node> arena;
+    private final    AtomicInteger              bound = new AtomicInteger();
+
+    public Exchanger() {
+    }
+
+    // =================================================================================================================
+
+    private static int arenaIndex(int i) {
+        return (i + 1) << ASHIFT; // 第 0 个间隔留空, 避免与数组头部伪共享
+    }
+
+    /**
+     * 单 slot 交换<br>
+     * 返回对方的 item, 中断 OR 需要转到 arena 时返回 null, 超时返回 TIMED_OUT
+     */
+    private Object slotExchange(Object item, boolean timed, long ns) {
+        Node   p = participant.get();
+        Thread t = Thread.currentThread();
+        if (t.isInterrupted()) return null;
+
+        for (Node q; ; ) {
+            if ((q = slot.get()) != null) {
+                // 已经有线程在等待, 取走它的 Node 并交出 item
+                if (slot.compareAndSet(q, null)) {
+                    Object v = q.item;
+                    q.match = item;
+                    Thread w = q.parked;
+                    if (w != null) LockSupport.unpark(w);
+                    return v;
+                }
+                // slot 上发生竞争, 创建 arena
+                if (NCPU > 1 && bound.get() == 0 && bound.compareAndSet(0, SEQ)) {
+                    arena = new AtomicReferenceArray<>((FULL + 2) << ASHIFT);
+                }
+            } else if (arena != null) {
+                return null; // caller must reroute to arenaExchange
+            } else {
+                p.item = item;
+                if (slot.compareAndSet(null, p)) break;
+                p.item = null;
+            }
+        }
+
+        // 等待对方线程
+        int    h     = p.hash;
+        long   end   = timed ? System.nanoTime() + ns : 0L;
+        int    spins = (NCPU > 1) ? SPINS : 1;
+        Object v;
+        while ((v = p.match) == null) {
+            if (spins > 0) {
+                h ^= h << 1;
+                h ^= h >>> 3;
+                h ^= h << 10; // xorshift
+                if (h == 0) h = SPINS | (int) t.getId(); // initialize hash
+                else if (h < 0 && (--spins & ((SPINS >>> 1) - 1)) == 0) Thread.yield(); // 两次 yield 之间平均自旋 SPINS / 2 次
+            } else if (slot.get() != p) {
+                spins = SPINS; // 对方已经取走 Node, 马上就会设置 match
+            } else if (!t.isInterrupted() && arena == null && (!timed || (ns = end - System.nanoTime()) > 0L)) {
+                p.parked = t;
+                if (slot.get() == p) {
+                    if (!timed) LockSupport.park(this);
+                    else if (ns > spinForTimeoutThreshold) LockSupport.parkNanos(this, ns);
+                }
+                p.parked = null;
+            } else if (slot.compareAndSet(p, null)) {
+                // 中断 OR 超时 OR 需要转到 arena
+                v = timed && ns <= 0L && !t.isInterrupted() ? TIMED_OUT : null;
+                break;
+            }
+        }
+        p.match = null;
+        p.item = null;
+        p.hash = h;
+        return v;
+    }
+
+    /**
+     * 消除数组交换<br>
+     * 返回对方的 item, 中断时返回 null, 超时返回 TIMED_OUT
+     */
+    private Object arenaExchange(Object item, boolean timed, long ns) {
+        AtomicReferenceArray<Node> a = arena;
+        Node                       p = participant.get();
+        for (int i = p.index; ; ) {
+            int b, m, c;
+            int  j = arenaIndex(i);
+            Node q = a.get(j);
+            if (q != null && a.compareAndSet(j, q, null)) {
+                // 位置 i 上有线程在等待, 取走它的 Node 并交出 item
+                Object v = q.item;
+                q.match = item;
+                Thread w = q.parked;
+                if (w != null) LockSupport.unpark(w);
+                return v;
+            } else if (i <= (m = (b = bound.get()) & MMASK) && q == null) {
+                // 位置 i 空闲, 放入自己的 Node 并等待
+                p.item = item;
+                if (a.compareAndSet(j, null, p)) {
+                    long   end = (timed && m == 0) ? System.nanoTime() + ns : 0L;
+                    Thread t   = Thread.currentThread();
+                    for (int h = p.hash, spins = SPINS; ; ) {
+                        Object v = p.match;
+                        if (v != null) {
+                            p.match = null;
+                            p.item = null;
+                            p.hash = h;
+                            return v;
+                        } else if (spins > 0) {
+                            h ^= h << 1;
+                            h ^= h >>> 3;
+                            h ^= h << 10; // xorshift
+                            if (h == 0) h = SPINS | (int) t.getId(); // initialize hash
+                            else if (h < 0 && (--spins & ((SPINS >>> 1) - 1)) == 0) Thread.yield();
+                        } else if (a.get(j) != p) {
+                            spins = SPINS; // 对方已经取走 Node, 马上就会设置 match
+                        } else if (!t.isInterrupted() && m == 0 && (!timed || (ns = end - System.nanoTime()) > 0L)) {
+                            // 只有 arena[0] 上的等待者 park
+                            p.parked = t;
+                            if (a.get(j) == p) {
+                                if (!timed) LockSupport.park(this);
+                                else if (ns > spinForTimeoutThreshold) LockSupport.parkNanos(this, ns);
+                            }
+                            p.parked = null;
+                        } else if (a.compareAndSet(j, p, null)) {
+                            // 等待失败, 缩小 bound, 换到更小的下标重试
+                            if (m != 0) bound.compareAndSet(b, b + SEQ - 1);
+                            p.item = null;
+                            p.hash = h;
+                            i = p.index >>>= 1;
+                            if (Thread.interrupted()) return null;
+                            if (timed && m == 0 && ns <= 0L) return TIMED_OUT;
+                            break; // expired; restart
+                        }
+                    }
+                } else {
+                    p.item = null; // clear offer
+                }
+            } else {
+                if (p.bound != b) {
+                    // bound 已经变化, 从新的最大下标开始
+                    p.bound = b;
+                    p.collides = 0;
+                    i = (i != m || m == 0) ? m : m - 1;
+                } else if ((c = p.collides) < m || m == FULL || !bound.compareAndSet(b, b + SEQ + 1)) {
+                    // 碰撞, 向下换一个位置
+                    p.collides = c + 1;
+                    i = (i == 0) ? m : i - 1;
+                } else {
+                    // 碰撞次数过多, 扩大 bound
+                    i = m + 1;
+                }
+                p.index = i;
+            }
+        }
+    }
+
+    // =================================================================================================================
+
+    @SuppressWarnings("unchecked")
+    public V exchange(V x) throws InterruptedException {
+        Object item = (x == null) ? NULL_ITEM : x;
+        Object v;
+        if ((arena != null || (v = slotExchange(item, false, 0L)) == null) &&
+                (Thread.interrupted() || (v = arenaExchange(item, false, 0L)) == null)) {
+            throw new InterruptedException();
+        }
+        return (v == NULL_ITEM) ? null : (V) v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V exchange(V x, long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        Object item = (x == null) ? NULL_ITEM : x;
+        long   ns   = unit.toNanos(timeout);
+        Object v;
+        if ((arena != null || (v = slotExchange(item, true, ns)) == null) &&
+                (Thread.interrupted() || (v = arenaExchange(item, true, ns)) == null)) {
+            throw new InterruptedException();
+        }
+        if (v == TIMED_OUT) throw new TimeoutException();
+        return (v == NULL_ITEM) ? null : (V) v;
+    }
+}
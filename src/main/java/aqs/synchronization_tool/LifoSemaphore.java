@@ -0,0 +1,343 @@
+package aqs.synchronization_tool;
+
+import aqs.lock.ReentrantLock;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>后进先出(LIFO)唤醒的并发限制信号量, 用于过载保护
+ * <p>Semaphore 的 sync queue 是 FIFO 的, 过载时每个请求都要等待最长的时间, 结果大部分请求都错过了截止时间
+ * <p>LifoSemaphore 释放许可时优先唤醒最新到达的等待者, 让能被服务的请求保持低延迟
+ * <p>maxWaitNanos > 0 时, 等待超过 maxWaitNanos 的等待者会被丢弃(shed), 而不是继续排队
+ * <p>许可直接移交给被唤醒的等待者, 被唤醒的线程不需要再竞争许可
+ */
+public class LifoSemaphore {
+
+    /**
+     * 等待者, 双向链表节点, top 是最新到达的等待者, bottom 是最早到达的等待者
+     */
+    private static final class Waiter {
+
+        final Thread thread;
+        final long   enqueueTime;
+
+        /**
+         * WAITING -> GRANTED | SHED | CANCELLED, 只会被修改一次, 修改时必须持有锁
+         */
+        volatile int status = WAITING;
+
+        // 持有锁才能访问
+        Waiter older;
+        Waiter newer;
+
+        Waiter(Thread thread, long enqueueTime) {
+            this.thread = thread;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+
+    private static final int WAITING   = 0; // 等待中
+    private static final int GRANTED   = 1; // 获取到许可
+    private static final int SHED      = 2; // 等待超过 maxWaitNanos 被丢弃
+    private static final int CANCELLED = 3; // 超时 OR 中断
+
+    /**
+     * 与 AQS.spinForTimeoutThreshold 相同, 剩余等待时间 <= 1000 ns 时自旋而不是 parkNanos()
+     */
+    private static final long spinForTimeoutThreshold = 1000L;
+
+    // =================================================================================================================
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 可用许可, 持有锁才能修改
+     */
+    private volatile int permits;
+
+    /**
+     * 等待栈, 持有锁才能访问
+     */
+    private Waiter top;
+    private Waiter bottom;
+
+    /**
+     * 等待超过 maxWaitNanos 的等待者会被丢弃, <= 0 表示不丢弃
+     */
+    private final long maxWaitNanos;
+
+    // 统计信息 ----------------------------------------
+
+    private volatile int    queueLength;     // 当前排队深度, 持有锁才能修改
+    private volatile int    peakQueueLength; // 排队深度峰值, 持有锁才能修改
+    private final LongAdder acquiredCount = new LongAdder(); // 成功获取许可的次数
+    private final LongAdder waitedCount   = new LongAdder(); // 排队后获取到许可的次数
+    private final LongAdder shedCount     = new LongAdder(); // 被丢弃的等待者数
+    private final LongAdder timeoutCount  = new LongAdder(); // 等待超时的等待者数
+
+    public LifoSemaphore(int permits) {
+        this(permits, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    public LifoSemaphore(int permits, long maxWait, TimeUnit unit) {
+        if (permits < 0) throw new IllegalArgumentException("permits < 0");
+        this.permits = permits;
+        this.maxWaitNanos = unit.toNanos(maxWait);
+    }
+
+    // 等待栈 ===========================================================================================================
+
+    private void push(Waiter w) {
+        w.older = top;
+        if (top != null) top.newer = w;
+        else bottom = w;
+        top = w;
+
+        int n = ++queueLength;
+        if (n > peakQueueLength) peakQueueLength = n;
+    }
+
+    private void unlink(Waiter w) {
+        Waiter older = w.older;
+        Waiter newer = w.newer;
+        if (newer != null) newer.older = older;
+        else top = older;
+        if (older != null) older.newer = newer;
+        else bottom = newer;
+        w.older = w.newer = null; // help GC
+        queueLength--;
+    }
+
+    /**
+     * 把 waiter 从等待栈移除并设置为 status, 返回 false 说明 waiter 已经获取到许可
+     */
+    private boolean cancel(Waiter w, int status) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (w.status != WAITING) return false;
+            unlink(w);
+            w.status = status;
+        } finally {
+            lock.unlock();
+        }
+        if (status == SHED) shedCount.increment();
+        else timeoutCount.increment();
+        return true;
+    }
+
+    // 获取许可核心实现 ===================================================================================================
+
+    /**
+     * 返回 GRANTED、SHED、CANCELLED(超时)
+     */
+    private int doAcquire(boolean interruptible, boolean timed, long nanos) throws InterruptedException {
+        if (interruptible && Thread.interrupted()) throw new InterruptedException(); // 有中断, 抛异常
+
+        final ReentrantLock lock = this.lock;
+        final Waiter        w;
+        lock.lock();
+        try {
+            // 有许可说明没有等待者, 直接获取
+            if (permits > 0) {
+                permits--;
+                acquiredCount.increment();
+                return GRANTED;
+            }
+            if (timed && nanos <= 0L) return CANCELLED;
+
+            w = new Waiter(Thread.currentThread(), System.nanoTime());
+            push(w);
+        } finally {
+            lock.unlock();
+        }
+
+        final long deadline     = timed ? w.enqueueTime + nanos : 0L;
+        final long shedDeadline = maxWaitNanos > 0L ? w.enqueueTime + maxWaitNanos : 0L;
+
+        boolean interrupted = false;
+        try {
+            for (; ; ) {
+                // 许可由 release() 直接移交
+                if (w.status == GRANTED) return GRANTED;
+
+                long now = System.nanoTime();
+                if (shedDeadline != 0L && now - shedDeadline >= 0L) {
+                    if (cancel(w, SHED)) return SHED;
+                    continue;
+                }
+                if (timed && now - deadline >= 0L) {
+                    if (cancel(w, CANCELLED)) return CANCELLED;
+                    continue;
+                }
+
+                if (Thread.interrupted()) {
+                    if (interruptible && cancel(w, CANCELLED)) throw new InterruptedException();
+                    interrupted = true; // 不响应中断 OR 已经获取到许可, 稍后恢复中断标记
+                    continue;
+                }
+
+                // 阻塞到最近的截止时间
+                long parkNanos = Long.MAX_VALUE;
+                if (shedDeadline != 0L) parkNanos = shedDeadline - now;
+                if (timed) parkNanos = Math.min(parkNanos, deadline - now);
+
+                if (parkNanos == Long.MAX_VALUE) LockSupport.park(this);
+                else if (parkNanos > spinForTimeoutThreshold) LockSupport.parkNanos(this, parkNanos);
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 被丢弃时抛出 RejectedExecutionException
+     */
+    public void acquire() throws InterruptedException {
+        if (doAcquire(true, false, 0L) == SHED) throw new RejectedExecutionException("shed after waiting " + maxWaitNanos + " ns");
+    }
+
+    /**
+     * 被丢弃时抛出 RejectedExecutionException
+     */
+    public void acquireUninterruptibly() {
+        int s;
+        try {
+            s = doAcquire(false, false, 0L);
+        } catch (InterruptedException e) {
+            throw new Error(e); // cannot happen
+        }
+        if (s == SHED) throw new RejectedExecutionException("shed after waiting " + maxWaitNanos + " ns");
+    }
+
+    public boolean tryAcquire() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (permits > 0) {
+                permits--;
+                acquiredCount.increment();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 超时 OR 被丢弃时返回 false
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return doAcquire(true, true, unit.toNanos(timeout)) == GRANTED;
+    }
+
+    /**
+     * 优先把许可移交给最新到达的等待者
+     */
+    public void release() {
+        release(1);
+    }
+
+    public void release(int n) {
+        if (n < 0) throw new IllegalArgumentException();
+
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            while (n > 0 && top != null) {
+                Waiter w = top;
+                unlink(w);
+                w.status = GRANTED;
+                LockSupport.unpark(w.thread);
+                acquiredCount.increment();
+                waitedCount.increment();
+                n--;
+            }
+            if (permits + n < permits) throw new Error("Maximum permit count exceeded"); // overflow
+            permits += n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =================================================================================================================
+
+    public int availablePermits() {
+        return permits;
+    }
+
+    public int drainPermits() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int current = permits;
+            permits = 0;
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxWait(TimeUnit unit) {
+        return unit.convert(maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // 统计信息 ==========================================================================================================
+
+    public final boolean hasQueuedThreads() {
+        return queueLength > 0;
+    }
+
+    /**
+     * 当前排队深度
+     */
+    public final int getQueueLength() {
+        return queueLength;
+    }
+
+    /**
+     * 排队深度峰值
+     */
+    public int getPeakQueueLength() {
+        return peakQueueLength;
+    }
+
+    /**
+     * 成功获取许可的次数
+     */
+    public long getAcquiredCount() {
+        return acquiredCount.sum();
+    }
+
+    /**
+     * 排队后获取到许可的次数
+     */
+    public long getWaitedCount() {
+        return waitedCount.sum();
+    }
+
+    /**
+     * 等待超过 maxWaitNanos 被丢弃的次数
+     */
+    public long getShedCount() {
+        return shedCount.sum();
+    }
+
+    /**
+     * 等待超时 OR 被中断的次数
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public String toString() {
+        return super.toString() + "[Permits = " + permits + ", QueueLength = " + queueLength
+                + ", Shed = " + shedCount.sum() + "]";
+    }
+}
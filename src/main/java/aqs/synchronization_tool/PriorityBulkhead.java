@@ -0,0 +1,275 @@
+package aqs.synchronization_tool;
+
+import aqs.AbstractQueuedSynchronizer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>按优先级分类的舱壁(bulkhead)信号量, priorityClass 越小优先级越高
+ * <p>reserved[c]: 第 c 类保留的最少许可, 只能被第 c 类使用
+ * <p>limits[c]: 第 c 类最多可以同时持有的许可
+ * <p>totalPermits - sum(reserved) 是共享许可, 保留许可用完后可以借用空闲的共享许可
+ * <p>有更高优先级的线程在等待共享许可时, 低优先级的线程不能获取共享许可
+ * <p>每一类都有自己的 AQS sync queue, 获取不到许可的线程在自己那一类的 sync queue 中阻塞
+ * <p>释放许可时按优先级从高到低唤醒
+ */
+public class PriorityBulkhead {
+
+    /**
+     * 一类许可, state 为这一类当前持有的许可数
+     */
+    private final class ClassSync extends AbstractQueuedSynchronizer {
+
+        final int priorityClass;
+        final int reserved;
+        final int limit;
+
+        final LongAdder acquiredCount = new LongAdder(); // 成功获取许可的次数
+        final LongAdder rejectedCount = new LongAdder(); // 获取许可失败(tryAcquire 失败 OR 超时 OR 中断)的次数
+
+        volatile int peakUsed; // 持有许可数峰值
+
+        ClassSync(int priorityClass, int reserved, int limit) {
+            this.priorityClass = priorityClass;
+            this.reserved = reserved;
+            this.limit = limit;
+        }
+
+        int getUsed() {
+            return getState();
+        }
+
+        /**
+         * 返回值 > 0 说明还有共享许可, 需要继续唤醒后继节点
+         */
+        protected int tryAcquireShared(int acquires) {
+            for (; ; ) {
+                int used = getState();
+                if (used >= limit) return -1;
+
+                // 使用保留许可
+                if (used < reserved) {
+                    if (compareAndSetState(used, used + 1)) return onAcquired(used + 1, 1);
+                    continue;
+                }
+
+                // 借用共享许可, 更高优先级的线程在等待时让行
+                if (higherPriorityWaiting(priorityClass)) return -1;
+                int s = sharedUsed.get();
+                if (s >= sharedCapacity) return -1;
+                if (!sharedUsed.compareAndSet(s, s + 1)) continue;
+                if (compareAndSetState(used, used + 1)) return onAcquired(used + 1, s + 1 < sharedCapacity ? 1 : 0);
+
+                // 先占用了共享许可, 但 state 已经被修改, 归还共享许可后重试
+                // 占用期间其它线程可能因为没有共享许可而阻塞, 需要唤醒
+                sharedUsed.decrementAndGet();
+                signalWaiters();
+            }
+        }
+
+        private int onAcquired(int used, int propagate) {
+            if (used > peakUsed) peakUsed = used; // 非准确峰值
+            acquiredCount.increment();
+            return propagate;
+        }
+
+        /**
+         * releases == 0 只用于唤醒 sync queue 中的线程
+         */
+        protected boolean tryReleaseShared(int releases) {
+            return true;
+        }
+
+        void releasePermit() {
+            for (; ; ) {
+                int used = getState();
+                if (used == 0) throw new IllegalMonitorStateException("no permit held by class " + priorityClass);
+                if (compareAndSetState(used, used - 1)) {
+                    if (used > reserved) sharedUsed.decrementAndGet(); // 归还借用的共享许可
+                    return;
+                }
+            }
+        }
+
+        void signal() {
+            releaseShared(0);
+        }
+
+        /**
+         * 有线程在排队, 并且这一类还没有达到 limit
+         */
+        boolean waitingForPermit() {
+            return hasQueuedThreads() && getState() < limit;
+        }
+    }
+
+    // =================================================================================================================
+
+    private final ClassSync[]   syncs;
+    private final int           sharedCapacity;
+    private final AtomicInteger sharedUsed = new AtomicInteger();
+
+    /**
+     * @param totalPermits 总许可数
+     * @param reserved     reserved[c] 为第 c 类保留的许可数
+     * @param limits       limits[c] 为第 c 类最多可以同时持有的许可数
+     */
+    public PriorityBulkhead(int totalPermits, int[] reserved, int[] limits) {
+        if (reserved.length == 0 || reserved.length != limits.length) throw new IllegalArgumentException();
+
+        int reservedSum = 0;
+        syncs = new ClassSync[reserved.length];
+        for (int c = 0; c < reserved.length; c++) {
+            if (reserved[c] < 0 || limits[c] < reserved[c] || limits[c] > totalPermits) throw new IllegalArgumentException();
+            reservedSum += reserved[c];
+            syncs[c] = new ClassSync(c, reserved[c], limits[c]);
+        }
+        if (reservedSum > totalPermits) throw new IllegalArgumentException("sum(reserved) > totalPermits");
+
+        sharedCapacity = totalPermits - reservedSum;
+    }
+
+    /**
+     * 没有保留许可, 每一类最多使用全部许可
+     */
+    public PriorityBulkhead(int totalPermits, int classes) {
+        this(totalPermits, new int[classes], filled(classes, totalPermits));
+    }
+
+    private static int[] filled(int length, int value) {
+        int[] a = new int[length];
+        Arrays.fill(a, value);
+        return a;
+    }
+
+    // =================================================================================================================
+
+    private boolean higherPriorityWaiting(int priorityClass) {
+        for (int h = 0; h < priorityClass; h++) {
+            if (syncs[h].waitingForPermit()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 按优先级从高到低唤醒
+     * 能使用保留许可的类都会被唤醒, 共享许可只唤醒优先级最高的一类, 由它获取许可后继续传播
+     */
+    private void signalWaiters() {
+        boolean sharedSignalled = false;
+        for (ClassSync sync : syncs) {
+            if (!sync.waitingForPermit()) continue;
+            if (sync.getUsed() < sync.reserved) {
+                sync.signal();
+            } else if (!sharedSignalled && sharedUsed.get() < sharedCapacity) {
+                sync.signal();
+                sharedSignalled = true;
+            }
+        }
+    }
+
+    private ClassSync sync(int priorityClass) {
+        if (priorityClass < 0 || priorityClass >= syncs.length) throw new IllegalArgumentException("priorityClass = " + priorityClass);
+        return syncs[priorityClass];
+    }
+
+    // =================================================================================================================
+
+    public void acquire(int priorityClass) throws InterruptedException {
+        ClassSync sync = sync(priorityClass);
+        try {
+            sync.acquireSharedInterruptibly(1);
+        } catch (InterruptedException e) {
+            sync.rejectedCount.increment();
+            signalWaiters(); // 当前线程可能挡住了低优先级的线程
+            throw e;
+        }
+        signalWaiters(); // 还有许可时继续唤醒低优先级的线程
+    }
+
+    public void acquireUninterruptibly(int priorityClass) {
+        sync(priorityClass).acquireShared(1);
+        signalWaiters();
+    }
+
+    public boolean tryAcquire(int priorityClass) {
+        ClassSync sync = sync(priorityClass);
+        if (sync.tryAcquireShared(1) >= 0) return true;
+        sync.rejectedCount.increment();
+        return false;
+    }
+
+    public boolean tryAcquire(int priorityClass, long timeout, TimeUnit unit) throws InterruptedException {
+        ClassSync sync     = sync(priorityClass);
+        boolean   acquired = false;
+        try {
+            acquired = sync.tryAcquireSharedNanos(1, unit.toNanos(timeout));
+            return acquired;
+        } finally {
+            if (!acquired) sync.rejectedCount.increment();
+            signalWaiters();
+        }
+    }
+
+    public void release(int priorityClass) {
+        sync(priorityClass).releasePermit();
+        signalWaiters();
+    }
+
+    // 统计信息 ==========================================================================================================
+
+    public int getClassCount() {
+        return syncs.length;
+    }
+
+    /**
+     * 第 priorityClass 类当前持有的许可数
+     */
+    public int getUsed(int priorityClass) {
+        return sync(priorityClass).getUsed();
+    }
+
+    /**
+     * 第 priorityClass 类当前借用的共享许可数
+     */
+    public int getBorrowed(int priorityClass) {
+        ClassSync sync = sync(priorityClass);
+        return Math.max(0, sync.getUsed() - sync.reserved);
+    }
+
+    public int getPeakUsed(int priorityClass) {
+        return sync(priorityClass).peakUsed;
+    }
+
+    public int getQueueLength(int priorityClass) {
+        return sync(priorityClass).getQueueLength();
+    }
+
+    public long getAcquiredCount(int priorityClass) {
+        return sync(priorityClass).acquiredCount.sum();
+    }
+
+    public long getRejectedCount(int priorityClass) {
+        return sync(priorityClass).rejectedCount.sum();
+    }
+
+    public int availableSharedPermits() {
+        return sharedCapacity - sharedUsed.get();
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder(super.toString()).append("[Shared = ").append(sharedUsed.get()).append('/').append(sharedCapacity);
+        for (ClassSync sync : syncs) {
+            sb.append(", Class").append(sync.priorityClass)
+              .append(" = {used = ").append(sync.getUsed())
+              .append(", reserved = ").append(sync.reserved)
+              .append(", limit = ").append(sync.limit)
+              .append(", queued = ").append(sync.getQueueLength())
+              .append('}');
+        }
+        return sb.append(']').toString();
+    }
+}
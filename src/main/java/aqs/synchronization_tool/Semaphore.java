@@ -1,6 +1,7 @@
 package aqs.synchronization_tool;
 
 import aqs.AbstractQueuedSynchronizer;
+import aqs.Backoff;
 
 import java.util.Collection;
 import java.util.concurrent.TimeUnit;
@@ -9,7 +10,13 @@ public class Semaphore {
 
     abstract static class Sync extends AbstractQueuedSynchronizer {
 
-        Sync(int permits) {
+        /**
+         * CAS 失败后随机指数退避
+         */
+        final Backoff backoff;
+
+        Sync(int permits, boolean useBackoff) {
+            backoff = new Backoff(useBackoff);
             setState(permits);
         }
 
@@ -18,19 +25,20 @@ public class Semaphore {
         }
 
         final int nonfairTryAcquireShared(int acquires) {
-            for (; ; ) {
+            for (int failures = 0; ; failures = backoff.backoff(failures)) {
                 int available = getState();
                 int remaining = available - acquires;
                 if (remaining < 0 || compareAndSetState(available, remaining)) {
                     // remaining < 0 直接返回, AQS 负责阻塞
-                    // remaining >= 0, CAS 更新 state, CAS 失败会进行自旋
+                    // remaining >= 0, CAS 更新 state, CAS 失败会退避后自旋
+                    backoff.onSuccess(failures);
                     return remaining;
                 }
             }
         }
 
         protected final boolean tryReleaseShared(int releases) {
-            for (; ; ) {
+            for (int failures = 0; ; failures = backoff.backoff(failures)) {
                 int current = getState();
                 int next    = current + releases;
 
@@ -38,7 +46,10 @@ public class Semaphore {
                 if (next < current) throw new Error("Maximum permit count exceeded");
 
                 // 注意这里, 永远返回 true
-                if (compareAndSetState(current, next)) return true;
+                if (compareAndSetState(current, next)) {
+                    backoff.onSuccess(failures);
+                    return true;
+                }
             }
         }
 
@@ -47,15 +58,18 @@ public class Semaphore {
          */
         final void reducePermits(int reductions) {
             // 类似 nonfairTryAcquireShared()
-            for (; ; ) {
+            for (int failures = 0; ; failures = backoff.backoff(failures)) {
                 int current = getState();
                 int next    = current - reductions;
 
                 // underflow
                 if (next > current) throw new Error("Permit count underflow");
 
-                // next <= current, CAS 更新 state, CAS 失败会进行自旋
-                if (compareAndSetState(current, next)) return;
+                // next <= current, CAS 更新 state, CAS 失败会退避后自旋
+                if (compareAndSetState(current, next)) {
+                    backoff.onSuccess(failures);
+                    return;
+                }
             }
         }
 
@@ -63,11 +77,12 @@ public class Semaphore {
          * 重置许可
          */
         final int drainPermits() {
-            for (; ; ) {
+            for (int failures = 0; ; failures = backoff.backoff(failures)) {
                 int current = getState();
                 if (current == 0 || compareAndSetState(current, 0)) {
                     // current == 0 则 return 0
-                    // current != 0 则 CAS 更新 state = 0, CAS 失败会进行自旋, 最终返回 current
+                    // current != 0 则 CAS 更新 state = 0, CAS 失败会退避后自旋, 最终返回 current
+                    backoff.onSuccess(failures);
                     return current;
                 }
             }
@@ -76,8 +91,8 @@ public class Semaphore {
 
     static final class NonfairSync extends Sync {
 
-        NonfairSync(int permits) {
-            super(permits);
+        NonfairSync(int permits, boolean useBackoff) {
+            super(permits, useBackoff);
         }
 
         protected int tryAcquireShared(int acquires) {
@@ -88,12 +103,12 @@ public class Semaphore {
 
     static final class FairSync extends Sync {
 
-        FairSync(int permits) {
-            super(permits);
+        FairSync(int permits, boolean useBackoff) {
+            super(permits, useBackoff);
         }
 
         protected int tryAcquireShared(int acquires) {
-            for (; ; ) {
+            for (int failures = 0; ; failures = backoff.backoff(failures)) {
                 // 有排队的前置任务 return -1,  AQS 负责阻塞
                 if (hasQueuedPredecessors()) return -1;
 
@@ -101,7 +116,8 @@ public class Semaphore {
                 int remaining = available - acquires;
                 if (remaining < 0 || compareAndSetState(available, remaining)) {
                     // remaining < 0 直接返回, AQS 负责阻塞
-                    // remaining >= 0, CAS 更新 state, CAS 失败会进行自旋
+                    // remaining >= 0, CAS 更新 state, CAS 失败会退避后自旋
+                    backoff.onSuccess(failures);
                     return remaining;
                 }
             }
@@ -113,11 +129,18 @@ public class Semaphore {
     private final Sync sync;
 
     public Semaphore(int permits) {
-        sync = new NonfairSync(permits); // 默认非公平锁
+        this(permits, false); // 默认非公平锁
     }
 
     public Semaphore(int permits, boolean fair) {
-        sync = fair ? new FairSync(permits) : new NonfairSync(permits);
+        this(permits, fair, true);
+    }
+
+    /**
+     * backoff 为 false 时 CAS 失败后立即重试, 不退避
+     */
+    public Semaphore(int permits, boolean fair, boolean backoff) {
+        sync = fair ? new FairSync(permits, backoff) : new NonfairSync(permits, backoff);
     }
 
     // =================================================================================================================
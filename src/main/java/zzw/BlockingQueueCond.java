@@ -4,13 +4,18 @@ import aqs.Condition;
 import aqs.lock.Lock;
 import aqs.lock.ReentrantLock;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>支持阻塞读和阻塞写的有限队列
  * <p>入队: 队列已满时, 写入操作会被阻塞, 直到队列有空位为止
  * <p>出队: 队列为空时, 读取操作会被阻塞, 直到队列有数据为止
  * <p>基于条件变量实现, await() 和 signal() 之前必须先加锁, while(...) await() 避免假唤醒
+ * <p>批量操作 enqueueAll() / drainTo() 一次加锁移动多个元素
  */
 @SuppressWarnings("all")
 public class BlockingQueueCond<E> {
@@ -22,9 +27,19 @@ public class BlockingQueueCond<E> {
     private final Condition notFull  = lock.newCondition();
     private final Condition notEmpty = lock.newCondition();
 
+    /**
+     * 在解锁之后调用, null 表示不打印
+     */
+    private final QueueDebugHook<? super E> debugHook;
+
     public BlockingQueueCond(int capacity) {
+        this(capacity, new QueueDebugHook.PrintHook<>(100));
+    }
+
+    public BlockingQueueCond(int capacity, QueueDebugHook<? super E> debugHook) {
         this.list = new LinkedList<>();
         this.capacity = capacity;
+        this.debugHook = debugHook;
     }
 
     /**
@@ -36,34 +51,124 @@ public class BlockingQueueCond<E> {
             while (list.size() == capacity) notFull.awaitUninterruptibly();
 
             list.addLast(e);
-            System.err.println("写入 " + e);
-            Util.sleep(100); // 用于等待 IO 完成
 
             notEmpty.signal();
         } finally {
             lock.unlock();
         }
+
+        if (debugHook != null) debugHook.onEnqueue(e);
     }
 
     /**
      * 出队: 队列为空时, 读取操作会被阻塞, 直到队列有数据为止
      */
     public E dequeue() {
+        E e;
         lock.lock();
         try {
             while (list.isEmpty()) notEmpty.awaitUninterruptibly();
 
-            E e = list.removeFirst();
-            System.out.println("读取 " + e);
-            Util.sleep(100); // 用于等待 IO 完成
+            e = list.removeFirst();
 
             notFull.signal();
-            return e;
         } finally {
             lock.unlock();
         }
+
+        if (debugHook != null) debugHook.onDequeue(e);
+        return e;
     }
 
+    // 批量操作 ==========================================================================================================
+
+    /**
+     * 批量入队: 队列已满时阻塞, 直到 c 中的元素全部入队为止<br>
+     * 每次被唤醒后放入尽可能多的元素, 元素超过 capacity 时会分多次放入
+     */
+    public void enqueueAll(Collection<? extends E> c) {
+        if (c.isEmpty()) return;
+
+        lock.lock();
+        try {
+            for (E e : c) {
+                while (list.size() == capacity) {
+                    notEmpty.signalAll(); // 放入的元素已经填满队列, 唤醒消费者后再等待
+                    notFull.awaitUninterruptibly();
+                }
+                list.addLast(e);
+            }
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (debugHook != null) for (E e : c) debugHook.onEnqueue(e);
+    }
+
+    /**
+     * 批量出队: 不阻塞, 最多取出 maxElements 个元素放入 c, 返回取出的元素个数
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) throw new NullPointerException();
+        if (maxElements <= 0) return 0;
+
+        List<E> drained = debugHook == null ? null : new ArrayList<>();
+        int     n;
+        lock.lock();
+        try {
+            n = drain(c, maxElements, drained);
+        } finally {
+            lock.unlock();
+        }
+
+        if (drained != null) for (E e : drained) debugHook.onDequeue(e);
+        return n;
+    }
+
+    /**
+     * 批量出队: 队列为空时最多阻塞 timeout, 队列有数据后最多取出 maxElements 个元素放入 c, 返回取出的元素个数<br>
+     * 超时返回 0
+     */
+    public int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        if (c == null) throw new NullPointerException();
+        if (maxElements <= 0) return 0;
+
+        List<E> drained = debugHook == null ? null : new ArrayList<>();
+        long    nanos   = unit.toNanos(timeout);
+        int     n;
+        lock.lock();
+        try {
+            while (list.isEmpty()) {
+                if (nanos <= 0L) return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            n = drain(c, maxElements, drained);
+        } finally {
+            lock.unlock();
+        }
+
+        if (drained != null) for (E e : drained) debugHook.onDequeue(e);
+        return n;
+    }
+
+    /**
+     * 持有锁才能调用, drained != null 时同时记录取出的元素, 用于解锁之后回调 debugHook
+     */
+    private int drain(Collection<? super E> c, int maxElements, List<E> drained) {
+        int n = Math.min(maxElements, list.size());
+        for (int i = 0; i < n; i++) {
+            E e = list.removeFirst();
+            c.add(e);
+            if (drained != null) drained.add(e);
+        }
+        if (n == 1) notFull.signal();
+        else if (n > 1) notFull.signalAll(); // 空出了多个空位
+        return n;
+    }
+
+    // =================================================================================================================
+
     public int getSize() {
         lock.lock();
         try {
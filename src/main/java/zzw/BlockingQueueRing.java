@@ -0,0 +1,163 @@
+package zzw;
+
+import aqs.Condition;
+import aqs.lock.ReentrantLock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>支持阻塞读和阻塞写的有限队列, BlockingQueueCond 的高吞吐版本
+ * <p>预分配数组实现的环形队列, 入队和出队不分配节点
+ * <p>两把锁: 入队只竞争 putLock, 出队只竞争 takeLock, 生产者和消费者互不阻塞
+ * <p>count 是 AtomicInteger, 生产者写入元素后 count + 1, 消费者看到 count > 0 后读取元素, count 保证了元素的可见性
+ * <p>省略 signal: 只有队列从空变为非空(OR 从满变为不满)并且确实有线程在等待时, 才会获取另一把锁去 signal
+ * <p>日志和 IO 等待不在临界区内, 通过可选的 QueueDebugHook 在解锁之后回调
+ */
+public class BlockingQueueRing<E> {
+
+    private final Object[]      items;
+    private final int           capacity;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private int putIndex;  // 持有 putLock 才能访问
+    private int takeIndex; // 持有 takeLock 才能访问
+
+    private final ReentrantLock putLock  = new ReentrantLock();
+    private final Condition     notFull  = putLock.newCondition();
+    private final ReentrantLock takeLock = new ReentrantLock();
+    private final Condition     notEmpty = takeLock.newCondition();
+
+    // 等待中的线程数, 持有对应的锁才能修改
+    // 先修改等待数再检查 count, 另一方先修改 count 再检查等待数, volatile 保证至少一方能看到对方的修改, 不会丢失唤醒
+    private volatile int putWaiters;
+    private volatile int takeWaiters;
+
+    private volatile QueueDebugHook<? super E> debugHook;
+
+    public BlockingQueueRing(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException();
+        this.items = new Object[capacity];
+        this.capacity = capacity;
+    }
+
+    public void setDebugHook(QueueDebugHook<? super E> debugHook) {
+        this.debugHook = debugHook;
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 唤醒一个消费者, 只在队列从空变为非空时调用
+     */
+    private void signalNotEmpty() {
+        if (takeWaiters == 0) return; // 没有消费者在等待
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * 唤醒一个生产者, 只在队列从满变为不满时调用
+     */
+    private void signalNotFull() {
+        if (putWaiters == 0) return; // 没有生产者在等待
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            notFull.signal();
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 入队: 队列已满时, 写入操作会被阻塞, 直到队列有空位为止
+     */
+    public void enqueue(E e) {
+        if (e == null) throw new NullPointerException();
+
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count   = this.count;
+        int                 c;
+        putLock.lock();
+        try {
+            if (count.get() == capacity) {
+                putWaiters++;
+                try {
+                    while (count.get() == capacity) notFull.awaitUninterruptibly();
+                } finally {
+                    putWaiters--;
+                }
+            }
+
+            items[putIndex] = e;
+            if (++putIndex == capacity) putIndex = 0;
+
+            c = count.getAndIncrement();
+            // 还有空位, 唤醒下一个生产者(级联唤醒, 消费者只在队列从满变为不满时唤醒一个生产者)
+            if (c + 1 < capacity && putWaiters > 0) notFull.signal();
+        } finally {
+            putLock.unlock();
+        }
+
+        if (c == 0) signalNotEmpty();
+
+        QueueDebugHook<? super E> hook = debugHook;
+        if (hook != null) hook.onEnqueue(e);
+    }
+
+    /**
+     * 出队: 队列为空时, 读取操作会被阻塞, 直到队列有数据为止
+     */
+    @SuppressWarnings("unchecked")
+    public E dequeue() {
+        final ReentrantLock takeLock = this.takeLock;
+        final AtomicInteger count    = this.count;
+        E                   e;
+        int                 c;
+        takeLock.lock();
+        try {
+            if (count.get() == 0) {
+                takeWaiters++;
+                try {
+                    while (count.get() == 0) notEmpty.awaitUninterruptibly();
+                } finally {
+                    takeWaiters--;
+                }
+            }
+
+            e = (E) items[takeIndex];
+            items[takeIndex] = null; // help GC
+            if (++takeIndex == capacity) takeIndex = 0;
+
+            c = count.getAndDecrement();
+            // 还有元素, 唤醒下一个消费者(级联唤醒, 生产者只在队列从空变为非空时唤醒一个消费者)
+            if (c > 1 && takeWaiters > 0) notEmpty.signal();
+        } finally {
+            takeLock.unlock();
+        }
+
+        if (c == capacity) signalNotFull();
+
+        QueueDebugHook<? super E> hook = debugHook;
+        if (hook != null) hook.onDequeue(e);
+        return e;
+    }
+
+    /**
+     * 不加锁, 返回的是某一时刻的近似值
+     */
+    public int getSize() {
+        return count.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -4,13 +4,19 @@ import aqs.lock.Lock;
 import aqs.lock.ReentrantLock;
 import aqs.synchronization_tool.Semaphore;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>支持阻塞读和阻塞写的有限队列
  * <p>入队: 队列已满时, 写入操作会被阻塞, 直到队列有空位为止
  * <p>出队: 队列为空时, 读取操作会被阻塞, 直到队列有数据为止
  * <p>基于信号量实现, 信号量的获取必须位于加锁之前, 信号量的释放必须位于解锁之前
+ * <p>批量操作 enqueueAll() / drainTo() 一次获取 OR 释放多个许可, 一次加锁移动多个元素
  */
 @SuppressWarnings("all")
 public class BlockingQueueSem<E> {
@@ -22,11 +28,21 @@ public class BlockingQueueSem<E> {
     private final Semaphore emptySemaphore;   // 空位信号量
     private final Semaphore elementSemaphore; // 元素信号量
 
+    /**
+     * 在解锁之后调用, null 表示不打印
+     */
+    private final QueueDebugHook<? super E> debugHook;
+
     public BlockingQueueSem(int capacity) {
+        this(capacity, new QueueDebugHook.PrintHook<>(100));
+    }
+
+    public BlockingQueueSem(int capacity, QueueDebugHook<? super E> debugHook) {
         this.list = new LinkedList<>();
         this.capacity = capacity;
         this.emptySemaphore = new Semaphore(capacity);
         this.elementSemaphore = new Semaphore(0);
+        this.debugHook = debugHook;
     }
 
     /**
@@ -41,8 +57,6 @@ public class BlockingQueueSem<E> {
         lock.lock();
         try {
             list.addLast(e);
-            System.err.println("写入 " + e);
-            Util.sleep(100); // 用于等待 IO 完成
 
             // 信号量的释放也必须在解锁之前
             // 如果在解锁之后释放信号量, 当解锁之后, 还没来得及释放信号量时
@@ -51,6 +65,8 @@ public class BlockingQueueSem<E> {
         } finally {
             lock.unlock();
         }
+
+        if (debugHook != null) debugHook.onEnqueue(e);
     }
 
     /**
@@ -62,22 +78,120 @@ public class BlockingQueueSem<E> {
         // 即 lock() -> 获取信号量失败 -> 阻塞 -> 别的线程因为无法获取锁而不能释放信号量 -> 无法 unlock() -> 死锁
         elementSemaphore.acquireUninterruptibly();
 
+        E e;
         lock.lock();
         try {
-            E e = list.removeFirst();
-            System.out.println("读取 " + e);
-            Util.sleep(100); // 用于等待 IO 完成
+            e = list.removeFirst();
 
             // 信号量的释放也必须在解锁之前
             // 如果在解锁之后释放信号量, 当解锁之后, 还没来得及释放信号量时
             // 别的线程获取信号量时将会被阻塞, 这将会导致消费信号量的线程不能及时消费
             emptySemaphore.release();
-            return e;
         } finally {
             lock.unlock();
         }
+
+        if (debugHook != null) debugHook.onDequeue(e);
+        return e;
+    }
+
+    // 批量操作 ==========================================================================================================
+
+    /**
+     * 批量入队: 队列已满时阻塞, 直到 c 中的元素全部入队为止<br>
+     * 每一轮先阻塞获取 1 个空位, 再尽可能多地获取空位, 然后一次加锁放入对应个数的元素
+     */
+    public void enqueueAll(Collection<? extends E> c) {
+        Iterator<? extends E> it        = c.iterator();
+        int                   remaining = c.size();
+        while (remaining > 0) {
+            // 信号量的获取必须在加锁之前
+            int n = acquireUpTo(emptySemaphore, remaining);
+
+            lock.lock();
+            try {
+                for (int i = 0; i < n; i++) list.addLast(it.next());
+
+                // 信号量的释放也必须在解锁之前
+                elementSemaphore.release(n);
+            } finally {
+                lock.unlock();
+            }
+            remaining -= n;
+        }
+
+        if (debugHook != null) for (E e : c) debugHook.onEnqueue(e);
+    }
+
+    /**
+     * 批量出队: 不阻塞, 最多取出 maxElements 个元素放入 c, 返回取出的元素个数
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) throw new NullPointerException();
+        if (maxElements <= 0) return 0;
+
+        int n = tryAcquireUpTo(elementSemaphore, maxElements);
+        if (n == 0) return 0;
+        return drain(c, n);
+    }
+
+    /**
+     * 批量出队: 队列为空时最多阻塞 timeout, 队列有数据后最多取出 maxElements 个元素放入 c, 返回取出的元素个数<br>
+     * 超时返回 0
+     */
+    public int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        if (c == null) throw new NullPointerException();
+        if (maxElements <= 0) return 0;
+
+        if (!elementSemaphore.tryAcquire(timeout, unit)) return 0;
+        int n = 1 + tryAcquireUpTo(elementSemaphore, maxElements - 1);
+        return drain(c, n);
+    }
+
+    /**
+     * 已经获取了 n 个元素许可, 一次加锁取出 n 个元素
+     */
+    private int drain(Collection<? super E> c, int n) {
+        List<E> drained = debugHook == null ? null : new ArrayList<>(n);
+        lock.lock();
+        try {
+            for (int i = 0; i < n; i++) {
+                E e = list.removeFirst();
+                c.add(e);
+                if (drained != null) drained.add(e);
+            }
+
+            // 信号量的释放也必须在解锁之前
+            emptySemaphore.release(n);
+        } finally {
+            lock.unlock();
+        }
+
+        if (drained != null) for (E e : drained) debugHook.onDequeue(e);
+        return n;
+    }
+
+    /**
+     * 阻塞获取 1 个许可, 然后不阻塞地再获取最多 max - 1 个许可, 返回获取的许可数
+     */
+    private static int acquireUpTo(Semaphore semaphore, int max) {
+        semaphore.acquireUninterruptibly();
+        return 1 + tryAcquireUpTo(semaphore, max - 1);
+    }
+
+    /**
+     * 不阻塞地获取最多 max 个许可, 返回获取的许可数
+     */
+    private static int tryAcquireUpTo(Semaphore semaphore, int max) {
+        for (; ; ) {
+            int n = Math.min(max, semaphore.availablePermits());
+            if (n <= 0) return 0;
+            if (semaphore.tryAcquire(n)) return n;
+        }
     }
 
+    // =================================================================================================================
+
     public int getSize() {
         lock.lock();
         try {
@@ -0,0 +1,203 @@
+package zzw;
+
+import aqs.Condition;
+import aqs.lock.Lock;
+import aqs.lock.ReentrantLock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>元素为 long 的有限阻塞队列, 与 BlockingQueueCond 的阻塞语义相同
+ * <p>入队: 队列已满时, 写入操作会被阻塞, 直到队列有空位为止
+ * <p>出队: 队列为空时, 读取操作会被阻塞, 直到队列有数据为止
+ * <p>元素保存在预分配的 long[] 环形数组中, 入队不装箱, 出队不拆箱, 稳定运行时不产生任何垃圾
+ * <p>基于条件变量实现, await() 和 signal() 之前必须先加锁, while(...) await() 避免假唤醒
+ */
+public class LongBlockingQueue {
+
+    private final long[] items;
+    private final int    capacity;
+    private int          putIndex;
+    private int          takeIndex;
+    private int          count;
+
+    private final Lock      lock     = new ReentrantLock();
+    private final Condition notFull  = lock.newCondition();
+    private final Condition notEmpty = lock.newCondition();
+
+    public LongBlockingQueue(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException();
+        this.items = new long[capacity];
+        this.capacity = capacity;
+    }
+
+    /**
+     * 持有锁才能调用
+     */
+    private void insert(long e) {
+        items[putIndex] = e;
+        if (++putIndex == capacity) putIndex = 0;
+        count++;
+        notEmpty.signal();
+    }
+
+    /**
+     * 持有锁才能调用
+     */
+    private long extract() {
+        long e = items[takeIndex];
+        if (++takeIndex == capacity) takeIndex = 0;
+        count--;
+        notFull.signal();
+        return e;
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 入队: 队列已满时, 写入操作会被阻塞, 直到队列有空位为止
+     */
+    public void enqueue(long e) {
+        lock.lock();
+        try {
+            while (count == capacity) notFull.awaitUninterruptibly();
+            insert(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 出队: 队列为空时, 读取操作会被阻塞, 直到队列有数据为止
+     */
+    public long dequeue() {
+        lock.lock();
+        try {
+            while (count == 0) notEmpty.awaitUninterruptibly();
+            return extract();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入队: 队列已满时最多阻塞 timeout, 超时返回 false
+     */
+    public boolean offer(long e, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (count == capacity) {
+                if (nanos <= 0L) return false;
+                nanos = notFull.awaitNanos(nanos);
+            }
+            insert(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 出队: 队列为空时最多阻塞 timeout, 超时返回 timeoutValue<br>
+     * 没有 null 可以表示超时, 由调用者指定一个不会出现在队列中的值, 避免返回包装对象
+     */
+    public long poll(long timeout, TimeUnit unit, long timeoutValue) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) return timeoutValue;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return extract();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 批量操作 ==========================================================================================================
+
+    /**
+     * 批量出队: 不阻塞, 最多取出 dst.length 个元素放入 dst, 返回取出的元素个数
+     */
+    public int drainTo(long[] dst) {
+        return drainTo(dst, 0, dst.length);
+    }
+
+    /**
+     * 批量出队: 不阻塞, 最多取出 maxElements 个元素放入 dst[offset, offset + maxElements), 返回取出的元素个数
+     */
+    public int drainTo(long[] dst, int offset, int maxElements) {
+        checkRange(dst, offset, maxElements);
+        if (maxElements == 0) return 0;
+
+        lock.lock();
+        try {
+            return drain(dst, offset, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批量出队: 队列为空时最多阻塞 timeout, 队列有数据后最多取出 maxElements 个元素放入 dst[offset, offset + maxElements), 返回取出的元素个数<br>
+     * 超时返回 0
+     */
+    public int drainTo(long[] dst, int offset, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        checkRange(dst, offset, maxElements);
+        if (maxElements == 0) return 0;
+
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return drain(dst, offset, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void checkRange(long[] dst, int offset, int maxElements) {
+        if (dst == null) throw new NullPointerException();
+        if (offset < 0 || maxElements < 0 || maxElements > dst.length - offset) throw new IndexOutOfBoundsException();
+    }
+
+    /**
+     * 持有锁才能调用, 最多分两段 System.arraycopy() 复制环形数组
+     */
+    private int drain(long[] dst, int offset, int maxElements) {
+        int n = Math.min(maxElements, count);
+        if (n == 0) return 0;
+
+        int first = Math.min(n, capacity - takeIndex);
+        System.arraycopy(items, takeIndex, dst, offset, first);
+        if (first < n) System.arraycopy(items, 0, dst, offset + first, n - first);
+
+        takeIndex += n;
+        if (takeIndex >= capacity) takeIndex -= capacity;
+        count -= n;
+
+        if (n == 1) notFull.signal();
+        else notFull.signalAll(); // 空出了多个空位
+        return n;
+    }
+
+    // =================================================================================================================
+
+    public int getSize() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
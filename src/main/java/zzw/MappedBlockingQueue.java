@@ -0,0 +1,329 @@
+package zzw;
+
+import aqs.Condition;
+import aqs.lock.Lock;
+import aqs.lock.ReentrantLock;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>持久化的阻塞队列, 元素为 byte[] OR ByteBuffer, 进程重启后未读取的元素不会丢失
+ * <p>数据保存在目录下的段文件(segment)中, 每个段文件通过 FileChannel.map() 映射到内存, 读写直接访问映射内存, 没有 read() / write() 系统调用
+ * <p>记录格式: [int length][payload], 先写 payload 再写 length, length 为 0 表示后面还没有数据, length 为 -1 表示本段结束
+ * <p>当前段放不下新记录时滚动到下一个段, 读完的段被删除; 段文件数达到 maxSegments 时入队阻塞, 直到读取方删除旧段
+ * <p>消费者的读取位置(段号 + 段内偏移)保存在映射的 consumer.offset 文件中, 重启后从该位置继续读取
+ * <p>forceInterval: 0 表示从不 force(), 写入进入页缓存, 进程崩溃不丢数据, 但断电可能丢失;
+ * 1 表示每次写入后 force(), n 表示每 n 次写入 force() 一次, 也可以在一批写入之后手动调用 force()
+ * <p>Java 8 没有公开的 unmap 方法, 读完的段文件被删除后映射不会立即解除, close() 也不解除映射:
+ * 映射占用的虚拟内存和磁盘空间要等 MappedByteBuffer 被 GC 回收后才释放(Windows 上映射中的文件删除失败, 改为退出时删除),
+ * segmentSize * 段的滚动速度 不要超过 GC 回收的速度
+ */
+public class MappedBlockingQueue implements Closeable {
+
+    private static final int    HEADER      = 4;  // length 字段的字节数
+    private static final int    EOF         = -1; // 段结束标记
+    private static final String SUFFIX      = ".seg";
+    private static final String OFFSET_FILE = "consumer.offset";
+
+    /**
+     * 一个段文件, 映射整个文件
+     */
+    private static final class Segment {
+        final long             index;
+        final File             file;
+        final MappedByteBuffer buffer;
+
+        Segment(File dir, long index, int segmentSize) throws IOException {
+            this.index = index;
+            this.file = new File(dir, String.format("%020d%s", index, SUFFIX));
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                if (raf.length() < segmentSize) raf.setLength(segmentSize); // 新文件用 0 填充
+                this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+            // RandomAccessFile 关闭后映射依然有效, 不占用文件描述符
+        }
+    }
+
+    private final File dir;
+    private final int  segmentSize;
+    private final int  maxSegments;
+    private final int  forceInterval;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>(); // 第一个是读取段, 最后一个是写入段
+    private int                       writePos;
+    private int                       readPos;
+    private long                      count;
+
+    private final MappedByteBuffer offsetBuffer; // [long 段号][int 段内偏移]
+    private int                    unforcedWrites;
+    private int                    unforcedReads;
+    private boolean                closed;
+
+    private final Lock      lock     = new ReentrantLock();
+    private final Condition notFull  = lock.newCondition();
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * 段大小 64 MB, 最多 16 个段, 不 force()
+     */
+    public MappedBlockingQueue(File dir) throws IOException {
+        this(dir, 64 << 20, 16, 0);
+    }
+
+    public MappedBlockingQueue(File dir, int segmentSize, int maxSegments, int forceInterval) throws IOException {
+        if (segmentSize < 2 * HEADER + 1 || maxSegments < 2 || forceInterval < 0) throw new IllegalArgumentException();
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("cannot create directory " + dir);
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.forceInterval = forceInterval;
+
+        try (RandomAccessFile raf = new RandomAccessFile(new File(dir, OFFSET_FILE), "rw")) {
+            this.offsetBuffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 12);
+        }
+        recover();
+    }
+
+    // 恢复 ============================================================================================================
+
+    /**
+     * 按消费者偏移删除已经读完的段, 扫描剩余的段, 得到写入位置和未读取的记录数
+     */
+    private void recover() throws IOException {
+        long readIndex = offsetBuffer.getLong(0);
+        int  position  = offsetBuffer.getInt(8);
+
+        List<Long> indexes = new ArrayList<>();
+        File[]     files   = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    long index = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                    if (index < readIndex) delete(file); // 已经读完
+                    else indexes.add(index);
+                } catch (NumberFormatException ignore) {
+                }
+            }
+        }
+        Collections.sort(indexes);
+
+        if (indexes.isEmpty() || indexes.get(0) != readIndex) {
+            // 偏移文件不存在 OR 读取段已经丢失, 从最早的段开始读
+            readIndex = indexes.isEmpty() ? readIndex : indexes.get(0);
+            position = 0;
+            if (indexes.isEmpty()) indexes.add(readIndex);
+        }
+        for (long index : indexes) segments.addLast(new Segment(dir, index, segmentSize));
+
+        readPos = position;
+        for (Segment segment : segments) {
+            int pos = segment == segments.peekFirst() ? readPos : 0;
+            for (int len; pos + HEADER <= segmentSize && (len = segment.buffer.getInt(pos)) > 0 && len <= segmentSize - pos - HEADER; ) {
+                pos += HEADER + len;
+                count++;
+            }
+            writePos = pos; // 最后一个段扫描结束的位置就是写入位置
+        }
+        saveOffset();
+    }
+
+    private static void delete(File file) {
+        if (!file.delete()) file.deleteOnExit();
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 持有锁才能调用, 当前段放不下新记录时写入段结束标记, 创建下一个段
+     */
+    private void roll() {
+        Segment current = segments.peekLast();
+        if (writePos + HEADER <= segmentSize) current.buffer.putInt(writePos, EOF);
+        if (forceInterval > 0) current.buffer.force(); // 新段的数据不能先于旧段落盘
+
+        try {
+            segments.addLast(new Segment(dir, current.index + 1, segmentSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writePos = 0;
+        unforcedWrites = 0;
+    }
+
+    /**
+     * 持有锁才能调用, 读取段已经读完, 删除它并转到下一个段; 段的映射在 buffer 被 GC 回收时才解除
+     */
+    private void nextReadSegment() {
+        delete(segments.pollFirst().file);
+        readPos = 0;
+        notFull.signalAll(); // 入队可能在等待段文件数减少
+    }
+
+    /**
+     * 持有锁才能调用, 保存消费者偏移
+     */
+    private void saveOffset() {
+        offsetBuffer.putLong(0, segments.peekFirst().index);
+        offsetBuffer.putInt(8, readPos);
+        if (forceInterval > 0 && ++unforcedReads >= forceInterval) {
+            offsetBuffer.force();
+            unforcedReads = 0;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("queue closed");
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 入队: 段文件数已满时, 写入操作会被阻塞, 直到读取方删除旧段为止
+     */
+    public void enqueue(byte[] e) {
+        enqueue(ByteBuffer.wrap(e));
+    }
+
+    /**
+     * 入队: 写入 src 中 position 到 limit 之间的字节, 直接复制到映射内存, 写入后 src.position == src.limit
+     */
+    public void enqueue(ByteBuffer src) {
+        final int len = src.remaining();
+        if (len == 0) throw new IllegalArgumentException("empty element");
+        if (len > segmentSize - HEADER) throw new IllegalArgumentException("element larger than segment");
+
+        lock.lock();
+        try {
+            checkOpen();
+            while (writePos + HEADER + len > segmentSize && segments.size() >= maxSegments) {
+                notFull.awaitUninterruptibly();
+                checkOpen();
+            }
+            if (writePos + HEADER + len > segmentSize) roll();
+
+            MappedByteBuffer buffer = segments.peekLast().buffer;
+            buffer.position(writePos + HEADER);
+            buffer.put(src);
+            buffer.putInt(writePos, len); // 最后写 length, 读到 length 说明 payload 已经写完
+            writePos += HEADER + len;
+            count++;
+
+            if (forceInterval > 0 && ++unforcedWrites >= forceInterval) {
+                buffer.force();
+                unforcedWrites = 0;
+            }
+
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 出队: 队列为空时, 读取操作会被阻塞, 直到队列有数据为止
+     */
+    public byte[] dequeue() {
+        ByteBuffer view = dequeueBuffer();
+        byte[]     e    = new byte[view.remaining()];
+        view.get(e);
+        return e;
+    }
+
+    /**
+     * 出队: 不复制, 返回映射内存中该记录的只读视图<br>
+     * 读取段被删除后视图依然可以访问(映射在视图被回收后才解除), 但视图的内容不会再被持久化
+     */
+    public ByteBuffer dequeueBuffer() {
+        lock.lock();
+        try {
+            checkOpen();
+            while (count == 0) {
+                notEmpty.awaitUninterruptibly();
+                checkOpen();
+            }
+
+            // count > 0 说明后面一定有数据, 当前段读不到记录时一定已经滚动到了下一个段
+            int len;
+            while (readPos + HEADER > segmentSize || (len = segments.peekFirst().buffer.getInt(readPos)) <= 0) {
+                nextReadSegment();
+            }
+
+            ByteBuffer view = segments.peekFirst().buffer.duplicate();
+            view.position(readPos + HEADER);
+            view.limit(readPos + HEADER + len);
+            readPos += HEADER + len;
+            count--;
+            saveOffset();
+            return view.slice().asReadOnlyBuffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把写入段和消费者偏移刷到磁盘, 用于 forceInterval == 0 时按批 force()
+     */
+    public void force() {
+        lock.lock();
+        try {
+            checkOpen();
+            segments.peekLast().buffer.force();
+            offsetBuffer.force();
+            unforcedWrites = 0;
+            unforcedReads = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 刷盘后关闭, 阻塞中的 enqueue() / dequeue() 抛出 IllegalStateException<br>
+     * 不解除映射, 关闭后 queue 不再被引用时由 GC 回收
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            for (Segment segment : segments) segment.buffer.force();
+            offsetBuffer.force();
+            closed = true;
+            notFull.signalAll();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =================================================================================================================
+
+    public long getSize() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
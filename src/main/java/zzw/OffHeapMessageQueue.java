@@ -0,0 +1,290 @@
+package zzw;
+
+import aqs.lock.Lock;
+import aqs.lock.ReentrantLock;
+import aqs.synchronization_tool.Semaphore;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>元素为字节消息的有限阻塞队列, 消息内容保存在堆外
+ * <p>入队时把消息复制到预分配的直接内存 ByteBuffer 环形缓冲区中, 入队的 byte[] 可以马上复用, 队列中的消息不占用堆, 不产生年轻代垃圾
+ * <p>帧格式: [int length][payload][填充到 4 字节对齐], 帧头永远不会跨越缓冲区末尾, payload 可以跨越末尾回绕
+ * <p>出队时通过 MessageView 享元读取消息, 不创建新数组; 享元只在 MessageHandler 回调期间有效, 回调返回后空间被归还
+ * <p>容量按字节和消息数两个维度计算: 字节信号量和消息数信号量都获取成功才能入队
+ * <p>与 BlockingQueueSem 相同, 信号量的获取必须位于加锁之前, 信号量的释放必须位于解锁之前
+ */
+public class OffHeapMessageQueue {
+
+    private static final int HEADER = 4;
+
+    /**
+     * 出队回调, view 只在回调期间有效, 不能在回调之外持有它
+     */
+    public interface MessageHandler {
+        void onMessage(MessageView view);
+    }
+
+    /**
+     * 环形缓冲区中一条消息的享元视图, 每个队列只有一个实例, 只能在持有锁(即 MessageHandler 回调)期间访问
+     */
+    public final class MessageView {
+        private int offset; // payload 在环形缓冲区中的起始下标
+        private int length;
+
+        private MessageView() {
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public byte getByte(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException();
+            return ring.get((offset + index) & mask);
+        }
+
+        /**
+         * 复制 [index, index + len) 到 dst[dstOffset, dstOffset + len)
+         */
+        public void getBytes(int index, byte[] dst, int dstOffset, int len) {
+            if (index < 0 || len < 0 || len > length - index) throw new IndexOutOfBoundsException();
+            int start = (offset + index) & mask;
+            int first = Math.min(len, capacity - start);
+            ring.position(start);
+            ring.get(dst, dstOffset, first);
+            if (first < len) {
+                ring.position(0);
+                ring.get(dst, dstOffset + first, len - first);
+            }
+        }
+
+        /**
+         * 把整条消息复制到 dst 中, dst 剩余空间不足时抛出 BufferOverflowException
+         */
+        public void copyTo(ByteBuffer dst) {
+            if (dst.remaining() < length) throw new BufferOverflowException();
+            int first = Math.min(length, capacity - offset);
+            ring.limit(offset + first).position(offset);
+            dst.put(ring);
+            if (first < length) {
+                ring.limit(length - first).position(0);
+                dst.put(ring);
+            }
+            ring.limit(capacity);
+        }
+    }
+
+    // =================================================================================================================
+
+    private final ByteBuffer  ring;
+    private final int         capacity; // 字节数, 2 的幂
+    private final int         mask;
+    private final int         maxMessages;
+    private final MessageView view = new MessageView();
+
+    private int putPos;  // 持有锁才能访问
+    private int takePos; // 持有锁才能访问
+
+    private final Lock      lock = new ReentrantLock();
+    private final Semaphore emptyBytes;       // 空闲字节信号量, 公平: 避免大消息被小消息饿死
+    private final Semaphore emptySlots;       // 空闲消息数信号量
+    private final Semaphore elementSemaphore; // 消息信号量
+
+    /**
+     * capacityBytes 向上取整为 2 的幂
+     */
+    public OffHeapMessageQueue(int capacityBytes, int maxMessages) {
+        if (capacityBytes < HEADER || capacityBytes > (1 << 30) || maxMessages <= 0) throw new IllegalArgumentException();
+        int size = HEADER;
+        while (size < capacityBytes) size <<= 1;
+        this.ring = ByteBuffer.allocateDirect(size);
+        this.capacity = size;
+        this.mask = size - 1;
+        this.maxMessages = maxMessages;
+        this.emptyBytes = new Semaphore(size, true);
+        this.emptySlots = new Semaphore(maxMessages);
+        this.elementSemaphore = new Semaphore(0);
+    }
+
+    /**
+     * 一条消息占用的字节数: 帧头 + payload 向上对齐到 4 字节, 保证帧头不会跨越缓冲区末尾
+     */
+    private static int frameLength(int length) {
+        return HEADER + ((length + 3) & ~3);
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 入队: 空闲字节 OR 空闲消息数不足时, 写入操作会被阻塞, 直到其它线程出队为止
+     */
+    public void enqueue(byte[] e) {
+        enqueue(e, 0, e.length);
+    }
+
+    public void enqueue(byte[] e, int offset, int length) {
+        if (offset < 0 || length < 0 || length > e.length - offset) throw new IndexOutOfBoundsException();
+        int frame = acquire(length);
+
+        lock.lock();
+        try {
+            ring.putInt(putPos, length);
+            int start = (putPos + HEADER) & mask;
+            int first = Math.min(length, capacity - start);
+            ring.position(start);
+            ring.put(e, offset, first);
+            if (first < length) {
+                ring.position(0);
+                ring.put(e, offset + first, length - first);
+            }
+            putPos = (putPos + frame) & mask;
+
+            // 信号量的释放也必须在解锁之前
+            elementSemaphore.release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入队: 写入 src 中 position 到 limit 之间的字节, 写入后 src.position == src.limit
+     */
+    public void enqueue(ByteBuffer src) {
+        int length = src.remaining();
+        int frame  = acquire(length);
+
+        lock.lock();
+        try {
+            ring.putInt(putPos, length);
+            int start = (putPos + HEADER) & mask;
+            int first = Math.min(length, capacity - start);
+            int limit = src.limit();
+            src.limit(src.position() + first);
+            ring.position(start);
+            ring.put(src);
+            src.limit(limit);
+            if (first < length) {
+                ring.position(0);
+                ring.put(src);
+            }
+            putPos = (putPos + frame) & mask;
+
+            // 信号量的释放也必须在解锁之前
+            elementSemaphore.release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取 1 个消息数许可和 frameLength(length) 个字节许可, 必须在加锁之前调用
+     */
+    private int acquire(int length) {
+        if (length > capacity - HEADER) throw new IllegalArgumentException("message larger than queue");
+        int frame = frameLength(length);
+        if (frame > capacity) throw new IllegalArgumentException("message larger than queue");
+        emptySlots.acquireUninterruptibly();
+        emptyBytes.acquireUninterruptibly(frame);
+        return frame;
+    }
+
+    /**
+     * 出队: 队列为空时, 读取操作会被阻塞, 直到队列有数据为止<br>
+     * 持有锁调用 handler, 回调返回后消息占用的空间被归还
+     */
+    public void dequeue(MessageHandler handler) {
+        if (handler == null) throw new NullPointerException();
+        elementSemaphore.acquireUninterruptibly();
+        take(handler, null);
+    }
+
+    /**
+     * 出队: 不阻塞, 最多处理 maxMessages 条消息, 返回处理的消息数
+     */
+    public int read(MessageHandler handler, int maxMessages) {
+        if (handler == null) throw new NullPointerException();
+        int n = 0;
+        while (n < maxMessages && elementSemaphore.tryAcquire()) {
+            take(handler, null);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 出队: 把消息复制到 dst 中, 返回消息长度, 不产生垃圾<br>
+     * dst 剩余空间不足时抛出 BufferOverflowException, 消息留在队列中
+     */
+    public int dequeue(ByteBuffer dst) {
+        if (dst == null) throw new NullPointerException();
+        elementSemaphore.acquireUninterruptibly();
+        return take(null, dst);
+    }
+
+    /**
+     * 出队: 兼容 BlockingQueueSem 的接口, 会为每条消息创建新数组
+     */
+    public byte[] dequeue() {
+        final byte[][] e = new byte[1][];
+        dequeue(view -> {
+            e[0] = new byte[view.length()];
+            view.getBytes(0, e[0], 0, e[0].length);
+        });
+        return e[0];
+    }
+
+    /**
+     * 已经获取了 1 个消息许可, 加锁读取一条消息, 交给 handler OR 复制到 dst, 返回消息长度
+     */
+    private int take(MessageHandler handler, ByteBuffer dst) {
+        lock.lock();
+        try {
+            int length = ring.getInt(takePos);
+            if (dst != null && dst.remaining() < length) {
+                elementSemaphore.release(); // 归还消息许可, 消息留在队列中
+                throw new BufferOverflowException();
+            }
+
+            view.offset = (takePos + HEADER) & mask;
+            view.length = length;
+            int frame = frameLength(length);
+            try {
+                if (handler != null) handler.onMessage(view);
+                else view.copyTo(dst);
+            } finally {
+                takePos = (takePos + frame) & mask;
+                view.length = 0;
+
+                // 信号量的释放也必须在解锁之前
+                emptyBytes.release(frame);
+                emptySlots.release();
+            }
+            return length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =================================================================================================================
+
+    public int getSize() {
+        return maxMessages - emptySlots.availablePermits();
+    }
+
+    /**
+     * 已经占用的字节数, 包括帧头和对齐填充, 近似值
+     */
+    public int getUsedBytes() {
+        return capacity - emptyBytes.availablePermits();
+    }
+
+    public int getCapacityBytes() {
+        return capacity;
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+}
@@ -0,0 +1,36 @@
+package zzw;
+
+/**
+ * <p>阻塞队列的调试回调, 在解锁之后调用, 不占用锁
+ * <p>用于打印日志、模拟 IO 等待等与队列本身无关的操作
+ */
+public interface QueueDebugHook<E> {
+
+    void onEnqueue(E e);
+
+    void onDequeue(E e);
+
+    /**
+     * 打印日志并等待 IO 完成
+     */
+    class PrintHook<E> implements QueueDebugHook<E> {
+
+        private final long sleepMillis;
+
+        public PrintHook(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public void onEnqueue(E e) {
+            System.err.println("写入 " + e);
+            Util.sleep(sleepMillis); // 用于等待 IO 完成
+        }
+
+        @Override
+        public void onDequeue(E e) {
+            System.out.println("读取 " + e);
+            Util.sleep(sleepMillis); // 用于等待 IO 完成
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package zzw.benchmark;
+
+import aqs.Backoff;
+import aqs.synchronization_tool.CountDownLatch;
+import aqs.synchronization_tool.CyclicBarrier;
+import aqs.synchronization_tool.Semaphore;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>CAS 自旋随机指数退避的吞吐量测试
+ * <p>cas         : 裸 CAS 自旋累加
+ * <p>cas+backoff : CAS 失败后 Backoff 退避
+ * <p>semaphore   : 项目的 Semaphore tryAcquire() + release(), Sync 内部使用 Backoff
+ * <p>sem-nobk    : 同一个 Semaphore 关闭退避(new Semaphore(n, false, false)), 与 semaphore 列对比即为退避的收益
+ * <p>juc         : java.util.concurrent.Semaphore tryAcquire() + release(), 作为对照
+ * <p>需要在 32 核以上的机器上运行才能看到退避的效果, 核数较少时竞争主要来自线程切换而不是缓存行争用
+ */
+@SuppressWarnings("all")
+public class BackoffBenchmark {
+
+    private static final int[] THREADS        = {1, 2, 4, 8, 16, 32, 64};
+    private static final int   OPS_PER_THREAD = 1_000_000;
+
+    private interface Op {
+        void run();
+    }
+
+    /**
+     * 返回吞吐量 ops/s
+     */
+    private static long run(int numThread, Op op) throws InterruptedException {
+        final CountDownLatch latch   = new CountDownLatch(numThread);   // 唤醒主线程
+        final CyclicBarrier  barrier = new CyclicBarrier(numThread + 1); // 各线程同时开始执行
+
+        for (int i = 0; i < numThread; i++) {
+            new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    return;
+                }
+                for (int j = 0; j < OPS_PER_THREAD; j++) op.run();
+                latch.countDown();
+            }).start();
+        }
+
+        try {
+            barrier.await();
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException(e);
+        }
+        long startTime = System.nanoTime();
+        latch.await();
+        long endTime = System.nanoTime();
+
+        return (long) numThread * OPS_PER_THREAD * 1_000_000_000L / (endTime - startTime);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("available processors = " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %14s %14s %14s %14s %14s%n", "threads", "cas", "cas+backoff", "semaphore", "sem-nobk", "juc");
+
+        for (int numThread : THREADS) {
+            final AtomicInteger counter1 = new AtomicInteger();
+            long cas = run(numThread, () -> {
+                for (; ; ) {
+                    int c = counter1.get();
+                    if (counter1.compareAndSet(c, c + 1)) return;
+                }
+            });
+
+            final AtomicInteger counter2 = new AtomicInteger();
+            final Backoff       backoff  = new Backoff();
+            long casBackoff = run(numThread, () -> {
+                for (int failures = 0; ; failures = backoff.backoff(failures)) {
+                    int c = counter2.get();
+                    if (counter2.compareAndSet(c, c + 1)) {
+                        backoff.onSuccess(failures);
+                        return;
+                    }
+                }
+            });
+
+            final Semaphore semaphore = new Semaphore(numThread);
+            long sem = run(numThread, () -> {
+                if (semaphore.tryAcquire()) semaphore.release();
+            });
+
+            final Semaphore noBackoff = new Semaphore(numThread, false, false);
+            long semNoBackoff = run(numThread, () -> {
+                if (noBackoff.tryAcquire()) noBackoff.release();
+            });
+
+            final java.util.concurrent.Semaphore jucSemaphore = new java.util.concurrent.Semaphore(numThread);
+            long juc = run(numThread, () -> {
+                if (jucSemaphore.tryAcquire()) jucSemaphore.release();
+            });
+
+            System.out.printf("%8d %14d %14d %14d %14d %14d%n", numThread, cas, casBackoff, sem, semNoBackoff, juc);
+        }
+    }
+}
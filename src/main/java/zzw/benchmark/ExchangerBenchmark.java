@@ -0,0 +1,129 @@
+package zzw.benchmark;
+
+import aqs.synchronization_tool.CountDownLatch;
+import aqs.synchronization_tool.Exchanger;
+import zzw.BlockingQueueCond;
+
+/**
+ * <p>生产者和消费者交换缓冲区的吞吐量测试
+ * <p>exchanger : 项目的 Exchanger, 生产者交出满缓冲区, 换回空缓冲区
+ * <p>juc       : java.util.concurrent.Exchanger, 作为对照
+ * <p>2 queues  : 满缓冲区 BlockingQueueCond + 空缓冲区 BlockingQueueCond(不打印), 每次交换需要两次入队和两次出队
+ */
+@SuppressWarnings("all")
+public class ExchangerBenchmark {
+
+    private static final int[] PAIRS          = {1, 2, 4, 8, 16};
+    private static final int   SWAPS_PER_PAIR = 100_000;
+
+    private interface Swapper {
+        /**
+         * 生产者交出满缓冲区, 返回空缓冲区
+         */
+        int[] produce(int[] full) throws InterruptedException;
+
+        /**
+         * 消费者交出空缓冲区, 返回满缓冲区
+         */
+        int[] consume(int[] empty) throws InterruptedException;
+    }
+
+    private interface SwapperFactory {
+        Swapper newSwapper();
+    }
+
+    private static Swapper exchanger() {
+        final Exchanger<int[]> exchanger = new Exchanger<>();
+        return new Swapper() {
+            public int[] produce(int[] full) throws InterruptedException {
+                return exchanger.exchange(full);
+            }
+
+            public int[] consume(int[] empty) throws InterruptedException {
+                return exchanger.exchange(empty);
+            }
+        };
+    }
+
+    private static Swapper jucExchanger() {
+        final java.util.concurrent.Exchanger<int[]> exchanger = new java.util.concurrent.Exchanger<>();
+        return new Swapper() {
+            public int[] produce(int[] full) throws InterruptedException {
+                return exchanger.exchange(full);
+            }
+
+            public int[] consume(int[] empty) throws InterruptedException {
+                return exchanger.exchange(empty);
+            }
+        };
+    }
+
+    /**
+     * 满缓冲区队列 + 空缓冲区队列
+     */
+    private static Swapper twoQueues() {
+        final BlockingQueueCond<int[]> fullQueue  = new BlockingQueueCond<>(1, null); // 不打印
+        final BlockingQueueCond<int[]> emptyQueue = new BlockingQueueCond<>(1, null);
+        return new Swapper() {
+            public int[] produce(int[] full) throws InterruptedException {
+                fullQueue.enqueue(full);
+                return emptyQueue.dequeue();
+            }
+
+            public int[] consume(int[] empty) throws InterruptedException {
+                emptyQueue.enqueue(empty);
+                return fullQueue.dequeue();
+            }
+        };
+    }
+
+    /**
+     * 每一对生产者和消费者使用独立的 Swapper, 返回每秒交换次数
+     */
+    private static long run(int pairs, SwapperFactory factory) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(pairs * 2);
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < pairs; i++) {
+            final Swapper swapper = factory.newSwapper();
+            new Thread(() -> {
+                try {
+                    int[] buffer = new int[64];
+                    for (int j = 0; j < SWAPS_PER_PAIR; j++) {
+                        buffer[0] = j; // 填充缓冲区
+                        buffer = swapper.produce(buffer);
+                    }
+                } catch (InterruptedException ignore) {
+                }
+                latch.countDown();
+            }).start();
+            new Thread(() -> {
+                try {
+                    int[] buffer = new int[64];
+                    for (int j = 0; j < SWAPS_PER_PAIR; j++) {
+                        buffer = swapper.consume(buffer);
+                        int value = buffer[0]; // 消费缓冲区
+                    }
+                } catch (InterruptedException ignore) {
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        long endTime = System.nanoTime();
+
+        return (long) pairs * SWAPS_PER_PAIR * 1_000_000_000L / (endTime - startTime);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("available processors = " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %14s %14s %14s%n", "pairs", "exchanger", "juc", "2 queues");
+
+        for (int pairs : PAIRS) {
+            long exchanger = run(pairs, ExchangerBenchmark::exchanger);
+            long juc       = run(pairs, ExchangerBenchmark::jucExchanger);
+            long queues    = run(pairs, ExchangerBenchmark::twoQueues);
+            System.out.printf("%8d %14d %14d %14d%n", pairs, exchanger, juc, queues);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package zzw.benchmark;
+
+import zzw.pool.WorkStealingThreadPool;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>zzw.pool.RecursiveTask(WorkStealingThreadPool) 和 java.util.concurrent.ForkJoinPool 的分治任务对比
+ * <p>两种负载: 对 long 数组求和(大量极小的叶子任务), 归并排序(叶子任务较大, 合并需要 join 两个子任务)
+ */
+@SuppressWarnings("all")
+public class ForkJoinBenchmark {
+
+    private static final int THREADS   = 4;
+    private static final int SIZE      = 1 << 22;
+    private static final int THRESHOLD = 1 << 10;
+    private static final int ROUNDS    = 10;
+
+    // 求和 ============================================================================================================
+
+    private static final class ZzwSum extends zzw.pool.RecursiveTask<Long> {
+        final long[] a;
+        final int    lo, hi;
+
+        ZzwSum(long[] a, int lo, int hi) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected Long compute() {
+            if (hi - lo <= THRESHOLD) return sum(a, lo, hi);
+            int    mid   = (lo + hi) >>> 1;
+            ZzwSum right = new ZzwSum(a, mid, hi);
+            right.fork();
+            long left = new ZzwSum(a, lo, mid).compute();
+            return left + right.join();
+        }
+    }
+
+    private static final class JucSum extends java.util.concurrent.RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        final long[] a;
+        final int    lo, hi;
+
+        JucSum(long[] a, int lo, int hi) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected Long compute() {
+            if (hi - lo <= THRESHOLD) return sum(a, lo, hi);
+            int    mid   = (lo + hi) >>> 1;
+            JucSum right = new JucSum(a, mid, hi);
+            right.fork();
+            long left = new JucSum(a, lo, mid).compute();
+            return left + right.join();
+        }
+    }
+
+    private static long sum(long[] a, int lo, int hi) {
+        long s = 0;
+        for (int i = lo; i < hi; i++) s += a[i];
+        return s;
+    }
+
+    // 归并排序 ========================================================================================================
+
+    private static final class ZzwSort extends zzw.pool.RecursiveTask<Void> {
+        final long[] a, tmp;
+        final int    lo, hi;
+
+        ZzwSort(long[] a, long[] tmp, int lo, int hi) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected Void compute() {
+            if (hi - lo <= THRESHOLD) {
+                java.util.Arrays.sort(a, lo, hi);
+                return null;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ZzwSort(a, tmp, lo, mid), new ZzwSort(a, tmp, mid, hi));
+            merge(a, tmp, lo, mid, hi);
+            return null;
+        }
+    }
+
+    private static final class JucSort extends java.util.concurrent.RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final long[] a, tmp;
+        final int    lo, hi;
+
+        JucSort(long[] a, long[] tmp, int lo, int hi) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo <= THRESHOLD) {
+                java.util.Arrays.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new JucSort(a, tmp, lo, mid), new JucSort(a, tmp, mid, hi));
+            merge(a, tmp, lo, mid, hi);
+        }
+    }
+
+    private static void merge(long[] a, long[] tmp, int lo, int mid, int hi) {
+        System.arraycopy(a, lo, tmp, lo, hi - lo);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) a[k++] = tmp[i] <= tmp[j] ? tmp[i++] : tmp[j++];
+        while (i < mid) a[k++] = tmp[i++];
+        while (j < hi) a[k++] = tmp[j++];
+    }
+
+    // =================================================================================================================
+
+    private static long[] random() {
+        long[] a = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) a[i] = ThreadLocalRandom.current().nextLong();
+        return a;
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        WorkStealingThreadPool zzw = new WorkStealingThreadPool(THREADS, 1024);
+        ForkJoinPool           juc = new ForkJoinPool(THREADS);
+        long[]                 a   = random();
+        long[]                 tmp = new long[SIZE];
+
+        System.out.printf("%8s %14s %14s%n", "", "zzw(ms)", "ForkJoinPool(ms)");
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0   = System.nanoTime();
+            long sum1 = zzw.invoke(new ZzwSum(a, 0, SIZE));
+            long t1   = System.nanoTime();
+            long sum2 = juc.invoke(new JucSum(a, 0, SIZE));
+            long t2   = System.nanoTime();
+            if (sum1 != sum2) throw new AssertionError();
+            System.out.printf("%8s %14.2f %14.2f%n", "sum", (t1 - t0) / 1e6, (t2 - t1) / 1e6);
+        }
+        for (int r = 0; r < ROUNDS; r++) {
+            long[] a1 = random();
+            long[] a2 = a1.clone();
+            long   t0 = System.nanoTime();
+            zzw.invoke(new ZzwSort(a1, tmp, 0, SIZE));
+            long t1 = System.nanoTime();
+            juc.invoke(new JucSort(a2, tmp, 0, SIZE));
+            long t2 = System.nanoTime();
+            if (!java.util.Arrays.equals(a1, a2)) throw new AssertionError();
+            System.out.printf("%8s %14.2f %14.2f%n", "sort", (t1 - t0) / 1e6, (t2 - t1) / 1e6);
+        }
+        System.out.println("steal: " + zzw.getStealCount());
+
+        zzw.shutdown();
+        juc.shutdown();
+    }
+}
@@ -0,0 +1,56 @@
+package zzw.benchmark;
+
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.TaskFuture;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>JDK FutureTask 和 TaskFuture 的吞吐量测试
+ * <p>每轮通过 DefaultThreadPool 提交 BATCH 个空任务, 然后逐个 get()
+ */
+@SuppressWarnings("all")
+public class FutureBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int BATCH   = 1000;
+    private static final int ROUNDS  = 2000;
+
+    /**
+     * 返回吞吐量 tasks/s
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // 泛型数组
+    private static long run(boolean jdk) throws InterruptedException, ExecutionException {
+        DefaultThreadPool pool    = new DefaultThreadPool(THREADS, THREADS, BATCH, 10, TimeUnit.SECONDS);
+        Future<Integer>[] futures = new Future[BATCH];
+
+        long startTime = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int i = 0; i < BATCH; i++) {
+                if (jdk) {
+                    FutureTask<Integer> task = new FutureTask<>(() -> 1);
+                    pool.execute(task);
+                    futures[i] = task;
+                } else {
+                    futures[i] = pool.submit(() -> 1);
+                }
+            }
+            for (Future<Integer> future : futures) future.get();
+        }
+        long endTime = System.nanoTime();
+        pool.shutdown();
+
+        return (long) ROUNDS * BATCH * 1_000_000_000L / (endTime - startTime);
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        System.out.printf("%12s %14s%n", "future", "tasks/s");
+        for (int i = 0; i < 2; i++) {
+            System.out.printf("%12s %14d%n", "FutureTask", run(true));
+            System.out.printf("%12s %14d%n", "TaskFuture", run(false));
+        }
+    }
+}
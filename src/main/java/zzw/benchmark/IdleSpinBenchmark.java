@@ -0,0 +1,69 @@
+package zzw.benchmark;
+
+import aqs.synchronization_tool.CountDownLatch;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.LatencyHistogram;
+import zzw.pool.ThreadPoolMetrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>低 QPS 时 DefaultThreadPool 的交接延迟(execute() 到任务开始执行) x 空闲自旋时间(setIdleSpin)
+ * <p>提交者每隔 INTERVAL 提交一个任务, worker 几乎总是空闲; 不自旋时每个任务都要 unpark() 一个 park 的 worker
+ * <p>CPU 列为整个进程的 CPU 时间, spin 列为 worker 自旋的总时间, 二者之差即为自旋的代价
+ */
+@SuppressWarnings("all")
+public class IdleSpinBenchmark {
+
+    private static final int  THREADS        = 4;
+    private static final int  TASKS          = 20_000;
+    private static final long INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private static void run(long spinMicros, int spinners) throws InterruptedException {
+        final DefaultThreadPool pool = new DefaultThreadPool(THREADS, THREADS, 1024, 10, TimeUnit.SECONDS);
+        pool.setIdleSpin(spinMicros, TimeUnit.MICROSECONDS, spinners);
+        final LatencyHistogram handoff = new LatencyHistogram();
+        final CountDownLatch   latch   = new CountDownLatch(TASKS);
+
+        long cpuStart = processCpuNanos();
+        long start    = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            final long submitTime = System.nanoTime();
+            pool.execute(() -> {
+                handoff.record(System.nanoTime() - submitTime);
+                latch.countDown();
+            });
+            LockSupport.parkNanos(INTERVAL_NANOS);
+        }
+        latch.await();
+        long elapsed = System.nanoTime() - start;
+        long cpu     = processCpuNanos() - cpuStart;
+        ThreadPoolMetrics metrics = pool.getMetrics();
+        pool.shutdown();
+
+        System.out.printf("%8d %9d %10.1f %10.1f %10.1f %9.0f%% %9.0f%% %8.0f%%%n",
+                spinMicros, spinners,
+                handoff.getPercentileNanos(0.5) / 1000.0, handoff.getPercentileNanos(0.99) / 1000.0,
+                handoff.getMeanNanos() / 1000.0,
+                100.0 * cpu / elapsed, 100.0 * metrics.getSpinNanos() / elapsed,
+                metrics.getSpinHits() + metrics.getSpinMisses() == 0 ? 0.0
+                        : 100.0 * metrics.getSpinHits() / (metrics.getSpinHits() + metrics.getSpinMisses()));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%8s %9s %10s %10s %10s %10s %10s %9s%n",
+                "spin(us)", "spinners", "p50(us)", "p99(us)", "mean(us)", "CPU", "spin", "hits");
+        run(0, 0); // 预热
+        run(0, 0);
+        for (long spin : new long[]{20, 100, 500}) {
+            run(spin, 1);
+            run(spin, 2);
+        }
+    }
+}
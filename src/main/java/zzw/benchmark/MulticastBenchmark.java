@@ -0,0 +1,88 @@
+package zzw.benchmark;
+
+import zzw.BlockingQueueRing;
+import zzw.ring.BatchEventProcessor;
+import zzw.ring.RingBuffer;
+import zzw.ring.WaitStrategy;
+
+/**
+ * <p>一个生产者把每个事件发给 CONSUMERS 个消费者的吞吐量测试
+ * <p>queues: 每个消费者一个 BlockingQueueRing, 生产者把事件放入每一个队列
+ * <p>ring: 一个 RingBuffer, 事件只发布一次, 每个消费者用自己的序号读取
+ */
+@SuppressWarnings("all")
+public class MulticastBenchmark {
+
+    private static final int CONSUMERS   = 3;
+    private static final int BUFFER_SIZE = 1024;
+    private static final int EVENTS      = 1 << 22;
+
+    private static class ValueEvent {
+        long value;
+    }
+
+    /**
+     * 返回吞吐量 events/s
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // 泛型数组
+    private static long queues() throws InterruptedException {
+        final BlockingQueueRing<Long>[] queues    = new BlockingQueueRing[CONSUMERS];
+        final Thread[]                  consumers = new Thread[CONSUMERS];
+        for (int i = 0; i < CONSUMERS; i++) {
+            final BlockingQueueRing<Long> queue = queues[i] = new BlockingQueueRing<>(BUFFER_SIZE);
+            consumers[i] = new Thread(() -> {
+                long sum = 0;
+                for (int j = 0; j < EVENTS; j++) sum += queue.dequeue();
+            });
+        }
+
+        long startTime = System.nanoTime();
+        for (Thread consumer : consumers) consumer.start();
+        for (long i = 0; i < EVENTS; i++) {
+            Long event = i;
+            for (BlockingQueueRing<Long> queue : queues) queue.enqueue(event);
+        }
+        for (Thread consumer : consumers) consumer.join();
+        long endTime = System.nanoTime();
+
+        return EVENTS * 1_000_000_000L / (endTime - startTime);
+    }
+
+    /**
+     * 返回吞吐量 events/s
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // 泛型数组
+    private static long ring() throws InterruptedException {
+        final RingBuffer<ValueEvent>            ringBuffer = new RingBuffer<>(ValueEvent::new, BUFFER_SIZE, WaitStrategy.YIELDING);
+        final BatchEventProcessor<ValueEvent>[] processors = new BatchEventProcessor[CONSUMERS];
+        final Thread[]                          consumers  = new Thread[CONSUMERS];
+        for (int i = 0; i < CONSUMERS; i++) {
+            final long[] sum = new long[1];
+            processors[i] = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(), (event, sequence, endOfBatch) -> sum[0] += event.value);
+            ringBuffer.addGatingSequences(processors[i].getSequence());
+            consumers[i] = new Thread(processors[i]);
+        }
+
+        long startTime = System.nanoTime();
+        for (Thread consumer : consumers) consumer.start();
+        for (long i = 0; i < EVENTS; i++) {
+            long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).value = i;
+            ringBuffer.publish(sequence);
+        }
+        for (BatchEventProcessor<ValueEvent> processor : processors) {
+            while (processor.getSequence().get() < EVENTS - 1) Thread.yield();
+            processor.halt();
+        }
+        for (Thread consumer : consumers) consumer.join();
+        long endTime = System.nanoTime();
+
+        return EVENTS * 1_000_000_000L / (endTime - startTime);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%10s %14s%n", "variant", "events/s");
+        System.out.printf("%10s %14d%n", "queues", queues());
+        System.out.printf("%10s %14d%n", "ring", ring());
+    }
+}
@@ -0,0 +1,73 @@
+package zzw.benchmark;
+
+import zzw.BlockingQueueSem;
+import zzw.OffHeapMessageQueue;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>BlockingQueueSem&lt;byte[]&gt; 和 OffHeapMessageQueue 传递短生命周期字节消息的吞吐量和 GC 次数
+ * <p>BlockingQueueSem: 消息的所有权交给队列, 生产者每条消息都要 new byte[]
+ * <p>OffHeapMessageQueue: 生产者复用同一个 byte[], 消费者复制到复用的 ByteBuffer 中
+ */
+@SuppressWarnings("all")
+public class OffHeapQueueBenchmark {
+
+    private static final int MESSAGES     = 1 << 21;
+    private static final int MESSAGE_SIZE = 256;
+    private static final int CAPACITY     = 1024;
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    private static void report(String name, long startTime, long startGc) {
+        long endTime = System.nanoTime();
+        System.out.printf("%10s %14d %8d%n", name, MESSAGES * 1_000_000_000L / (endTime - startTime), gcCount() - startGc);
+    }
+
+    private static void onHeap() throws InterruptedException {
+        final BlockingQueueSem<byte[]> queue = new BlockingQueueSem<>(CAPACITY, null);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < MESSAGES; i++) queue.enqueue(new byte[MESSAGE_SIZE]);
+        });
+
+        long startGc   = gcCount();
+        long startTime = System.nanoTime();
+        producer.start();
+        long sum = 0;
+        for (int i = 0; i < MESSAGES; i++) sum += queue.dequeue().length;
+        producer.join();
+        report("on-heap", startTime, startGc);
+    }
+
+    private static void offHeap() throws InterruptedException {
+        final OffHeapMessageQueue queue = new OffHeapMessageQueue(CAPACITY * (MESSAGE_SIZE + 4), CAPACITY);
+        Thread producer = new Thread(() -> {
+            byte[] message = new byte[MESSAGE_SIZE];
+            for (int i = 0; i < MESSAGES; i++) queue.enqueue(message);
+        });
+
+        long startGc   = gcCount();
+        long startTime = System.nanoTime();
+        producer.start();
+        ByteBuffer dst = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+        long       sum = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            dst.clear();
+            sum += queue.dequeue(dst);
+        }
+        producer.join();
+        report("off-heap", startTime, startGc);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%10s %14s %8s%n", "queue", "messages/s", "gc");
+        onHeap();
+        offHeap();
+    }
+}
@@ -0,0 +1,76 @@
+package zzw.benchmark;
+
+import aqs.synchronization_tool.CountDownLatch;
+import zzw.pool.DefaultThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>DefaultThreadPool 执行大量微秒级任务的吞吐量: worker 批量取任务(batchSize) x 提交方批量提交(executeAll)
+ * <p>batchSize = 1 且逐个 execute() 相当于改动之前: 每个任务两次加锁, 每次提交都可能 signal()
+ */
+@SuppressWarnings("all")
+public class PoolBatchBenchmark {
+
+    private static final int THREADS     = 4;
+    private static final int PRODUCERS   = 2;
+    private static final int TASKS       = 1 << 21; // 每个生产者
+    private static final int SUBMIT_SIZE = 64;
+
+    private static volatile long sink;
+
+    /**
+     * 返回吞吐量 tasks/s
+     */
+    private static long run(int batchSize, boolean executeAll) throws InterruptedException {
+        final DefaultThreadPool pool = new DefaultThreadPool(THREADS, THREADS, 1 << 16, 10, TimeUnit.SECONDS);
+        pool.setBatchSize(batchSize);
+        final CountDownLatch latch = new CountDownLatch(PRODUCERS * TASKS);
+        final Runnable task = () -> {
+            long x = sink;
+            for (int i = 0; i < 20; i++) x = x * 31 + i;
+            sink = x;
+            latch.countDown();
+        };
+
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            producers[p] = new Thread(() -> {
+                List<Runnable> chunk = new ArrayList<>(SUBMIT_SIZE);
+                for (int i = 0; i < SUBMIT_SIZE; i++) chunk.add(task);
+                int submitted = 0;
+                while (submitted < TASKS) {
+                    try {
+                        if (executeAll) {
+                            pool.executeAll(chunk);
+                            submitted += SUBMIT_SIZE;
+                        } else {
+                            pool.execute(task);
+                            submitted++;
+                        }
+                    } catch (java.util.concurrent.RejectedExecutionException e) {
+                        Thread.yield(); // 队列已满
+                    }
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        for (Thread producer : producers) producer.start();
+        latch.await();
+        long endTime = System.nanoTime();
+        pool.shutdown();
+
+        return (long) PRODUCERS * TASKS * 1_000_000_000L / (endTime - startTime);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%10s %12s %14s%n", "batchSize", "submit", "tasks/s");
+        for (int batchSize : new int[]{1, 16}) {
+            System.out.printf("%10d %12s %14d%n", batchSize, "execute", run(batchSize, false));
+            System.out.printf("%10d %12s %14d%n", batchSize, "executeAll", run(batchSize, true));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package zzw.benchmark;
+
+import zzw.BlockingQueueCond;
+import zzw.BlockingQueueSem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>批量入队 enqueueAll() 和批量出队 drainTo() 的吞吐量测试
+ * <p>1 个生产者每次 enqueueAll() batch 个元素, 1 个消费者每次 drainTo() 最多 batch 个元素
+ * <p>single 为逐个 enqueue() / dequeue() 的对照
+ */
+@SuppressWarnings("all")
+public class QueueBatchBenchmark {
+
+    private static final int[] BATCHES  = {1, 4, 16, 64, 256, 1024};
+    private static final int   CAPACITY = 1024;
+    private static final int   ELEMENTS = 1 << 20;
+
+    private interface BatchQueue {
+        void enqueue(Integer e);
+
+        Integer dequeue();
+
+        void enqueueAll(Collection<Integer> c);
+
+        int drainTo(Collection<Integer> c, int max, long timeout, TimeUnit unit) throws InterruptedException;
+    }
+
+    private static BatchQueue sem() {
+        final BlockingQueueSem<Integer> queue = new BlockingQueueSem<>(CAPACITY, null);
+        return new BatchQueue() {
+            public void enqueue(Integer e) {
+                queue.enqueue(e);
+            }
+
+            public Integer dequeue() {
+                return queue.dequeue();
+            }
+
+            public void enqueueAll(Collection<Integer> c) {
+                queue.enqueueAll(c);
+            }
+
+            public int drainTo(Collection<Integer> c, int max, long timeout, TimeUnit unit) throws InterruptedException {
+                return queue.drainTo(c, max, timeout, unit);
+            }
+        };
+    }
+
+    private static BatchQueue cond() {
+        final BlockingQueueCond<Integer> queue = new BlockingQueueCond<>(CAPACITY, null);
+        return new BatchQueue() {
+            public void enqueue(Integer e) {
+                queue.enqueue(e);
+            }
+
+            public Integer dequeue() {
+                return queue.dequeue();
+            }
+
+            public void enqueueAll(Collection<Integer> c) {
+                queue.enqueueAll(c);
+            }
+
+            public int drainTo(Collection<Integer> c, int max, long timeout, TimeUnit unit) throws InterruptedException {
+                return queue.drainTo(c, max, timeout, unit);
+            }
+        };
+    }
+
+    /**
+     * batch == 0 表示逐个入队出队, 返回吞吐量 elements/s
+     */
+    private static long run(BatchQueue queue, int batch) throws InterruptedException {
+        final Integer element = 1;
+
+        Thread producer = new Thread(() -> {
+            if (batch == 0) {
+                for (int i = 0; i < ELEMENTS; i++) queue.enqueue(element);
+                return;
+            }
+            List<Integer> buffer = new ArrayList<>(batch);
+            for (int i = 0; i < batch; i++) buffer.add(element);
+            for (int i = 0; i < ELEMENTS; i += batch) queue.enqueueAll(buffer);
+        });
+        Thread consumer = new Thread(() -> {
+            if (batch == 0) {
+                for (int i = 0; i < ELEMENTS; i++) queue.dequeue();
+                return;
+            }
+            List<Integer> buffer = new ArrayList<>(batch);
+            try {
+                for (int i = 0; i < ELEMENTS; ) {
+                    buffer.clear();
+                    i += queue.drainTo(buffer, batch, 1, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException ignore) {
+            }
+        });
+
+        long startTime = System.nanoTime();
+        producer.start();
+        consumer.start();
+        producer.join();
+        consumer.join();
+        long endTime = System.nanoTime();
+
+        return ELEMENTS * 1_000_000_000L / (endTime - startTime);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%8s %14s %14s%n", "batch", "sem", "cond");
+        System.out.printf("%8s %14d %14d%n", "single", run(sem(), 0), run(cond(), 0));
+        for (int batch : BATCHES) {
+            System.out.printf("%8d %14d %14d%n", batch, run(sem(), batch), run(cond(), batch));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package zzw.benchmark;
+
+import zzw.BlockingQueueRing;
+import zzw.ring.MpmcRingQueue;
+import zzw.ring.MpscRingQueue;
+import zzw.ring.RingQueue;
+import zzw.ring.SpinThenParkWaitStrategy;
+import zzw.ring.SpscRingQueue;
+import zzw.ring.WaitStrategy;
+
+/**
+ * <p>无锁环形队列 SPSC / MPSC / MPMC 和加锁的 BlockingQueueRing 的吞吐量测试
+ * <p>每种队列分别使用 busy-spin / yielding / spin-then-park 三种等待策略
+ * <p>busy-spin 只适合线程数不超过 CPU 核数的场景, 否则等待者会占住生产者需要的 CPU
+ */
+@SuppressWarnings("all")
+public class RingQueueBenchmark {
+
+    private static final int CAPACITY = 1024;
+    private static final int ELEMENTS = 1 << 22;
+
+    private interface Queue {
+        void put(Integer e) throws InterruptedException;
+
+        Integer take() throws InterruptedException;
+    }
+
+    private interface QueueFactory {
+        Queue create(WaitStrategy waitStrategy);
+    }
+
+    private static Queue wrap(final RingQueue<Integer> queue) {
+        return new Queue() {
+            public void put(Integer e) throws InterruptedException {
+                queue.put(e);
+            }
+
+            public Integer take() throws InterruptedException {
+                return queue.take();
+            }
+        };
+    }
+
+    private static Queue locked() {
+        final BlockingQueueRing<Integer> queue = new BlockingQueueRing<>(CAPACITY);
+        return new Queue() {
+            public void put(Integer e) {
+                queue.enqueue(e);
+            }
+
+            public Integer take() {
+                return queue.dequeue();
+            }
+        };
+    }
+
+    /**
+     * 返回吞吐量 elements/s
+     */
+    private static long run(Queue queue, int producers, int consumers) throws InterruptedException {
+        final Integer  element = 1;
+        final Thread[] threads = new Thread[producers + consumers];
+        for (int i = 0; i < producers; i++) {
+            final int n = ELEMENTS / producers;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < n; j++) queue.put(element);
+                } catch (InterruptedException ignore) {
+                }
+            });
+        }
+        for (int i = 0; i < consumers; i++) {
+            final int n = ELEMENTS / consumers;
+            threads[producers + i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < n; j++) queue.take();
+                } catch (InterruptedException ignore) {
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        long endTime = System.nanoTime();
+
+        return ELEMENTS * 1_000_000_000L / (endTime - startTime);
+    }
+
+    private static void run(String name, QueueFactory factory, int producers, int consumers) throws InterruptedException {
+        long spin  = run(factory.create(WaitStrategy.BUSY_SPIN), producers, consumers);
+        long yield = run(factory.create(WaitStrategy.YIELDING), producers, consumers);
+        long park  = run(factory.create(new SpinThenParkWaitStrategy()), producers, consumers);
+        long lock  = run(locked(), producers, consumers);
+        System.out.printf("%6s %4d %4d %14d %14d %14d %14d%n", name, producers, consumers, spin, yield, park, lock);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%6s %4s %4s %14s %14s %14s %14s%n", "queue", "P", "C", "busy-spin", "yielding", "spin-park", "locked");
+        run("spsc", w -> wrap(new SpscRingQueue<>(CAPACITY, w)), 1, 1);
+        run("mpsc", w -> wrap(new MpscRingQueue<>(CAPACITY, w)), 1, 1);
+        run("mpsc", w -> wrap(new MpscRingQueue<>(CAPACITY, w)), 4, 1);
+        run("mpmc", w -> wrap(new MpmcRingQueue<>(CAPACITY, w)), 1, 1);
+        run("mpmc", w -> wrap(new MpmcRingQueue<>(CAPACITY, w)), 4, 4);
+    }
+}
@@ -0,0 +1,73 @@
+package zzw.benchmark;
+
+import zzw.pool.TimingWheelScheduler;
+import zzw.pool.TimingWheelScheduler.Timeout;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>大量超时任务的调度和取消: DelayQueue(二叉堆, O(log n) 插入, O(n) 删除) 和 TimingWheelScheduler(O(1) 插入和取消)
+ * <p>典型场景: 每个请求注册一个 1 ~ 60 s 的超时, 请求正常返回时取消超时, 绝大多数超时都不会到期
+ */
+@SuppressWarnings("all")
+public class TimerBenchmark {
+
+    private static final int TIMEOUTS = 1_000_000;
+    private static final int REMOVES  = 10_000; // DelayQueue.remove() 是 O(n), 只测一小部分
+
+    private static final class DelayedTimeout implements Delayed {
+        final long deadline;
+
+        DelayedTimeout(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        public int compareTo(Delayed o) {
+            return Long.compare(deadline, ((DelayedTimeout) o).deadline);
+        }
+    }
+
+    private static long randomDelayMillis() {
+        return ThreadLocalRandom.current().nextLong(1_000, 60_000);
+    }
+
+    public static void main(String[] args) {
+        for (int round = 0; round < 3; round++) {
+            // DelayQueue
+            DelayQueue<DelayedTimeout> queue    = new DelayQueue<>();
+            DelayedTimeout[]           delayeds = new DelayedTimeout[TIMEOUTS];
+            long                       t0       = System.nanoTime();
+            for (int i = 0; i < TIMEOUTS; i++) {
+                delayeds[i] = new DelayedTimeout(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(randomDelayMillis()));
+                queue.offer(delayeds[i]);
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < REMOVES; i++) queue.remove(delayeds[i]);
+            long t2 = System.nanoTime();
+
+            // 时间轮
+            TimingWheelScheduler scheduler = new TimingWheelScheduler(null);
+            Timeout[]            timeouts  = new Timeout[TIMEOUTS];
+            Runnable             task      = () -> {
+            };
+            long t3 = System.nanoTime();
+            for (int i = 0; i < TIMEOUTS; i++) timeouts[i] = scheduler.schedule(task, randomDelayMillis(), TimeUnit.MILLISECONDS);
+            long t4 = System.nanoTime();
+            for (int i = 0; i < TIMEOUTS; i++) timeouts[i].cancel();
+            long t5 = System.nanoTime();
+            scheduler.shutdown();
+
+            System.out.printf("DelayQueue   offer %4d ns/op, remove %6d ns/op%n",
+                    (t1 - t0) / TIMEOUTS, (t2 - t1) / REMOVES);
+            System.out.printf("TimingWheel  schedule %4d ns/op, cancel %6d ns/op%n",
+                    (t4 - t3) / TIMEOUTS, (t5 - t4) / TIMEOUTS);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package zzw.benchmark;
+
+import aqs.synchronization_tool.CountDownLatch;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.ThreadPool;
+import zzw.pool.WorkStealingThreadPool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>DefaultThreadPool 和 WorkStealingThreadPool 执行大量小任务的吞吐量测试
+ * <p>外部线程提交 ROOTS 个根任务, 每个根任务在线程池内再提交 FAN_OUT 个子任务, 子任务只做很少的计算
+ * <p>DefaultThreadPool 的所有提交和取任务都竞争同一把锁, WorkStealingThreadPool 的子任务进入本地双端队列
+ */
+@SuppressWarnings("all")
+public class WorkStealingBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int ROOTS   = 1 << 10;
+    private static final int FAN_OUT = 1 << 10;
+
+    private static volatile long sink;
+
+    private static void work() {
+        long x = sink;
+        for (int i = 0; i < 100; i++) x = x * 31 + i;
+        sink = x;
+    }
+
+    /**
+     * 返回吞吐量 tasks/s
+     */
+    private static long run(ThreadPool pool) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(ROOTS * FAN_OUT);
+        final Runnable leaf = () -> {
+            work();
+            latch.countDown();
+        };
+        final Runnable root = () -> {
+            for (int i = 0; i < FAN_OUT; i++) pool.execute(leaf);
+        };
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ROOTS; i++) pool.execute(root);
+        latch.await();
+        long endTime = System.nanoTime();
+        pool.shutdown();
+
+        return (long) ROOTS * FAN_OUT * 1_000_000_000L / (endTime - startTime);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%14s %14s%n", "pool", "tasks/s");
+        System.out.printf("%14s %14d%n", "default", run(new DefaultThreadPool(THREADS, THREADS, ROOTS * FAN_OUT + ROOTS, 10, TimeUnit.SECONDS)));
+        System.out.printf("%14s %14d%n", "work-stealing", run(new WorkStealingThreadPool(THREADS, ROOTS)));
+    }
+}
@@ -0,0 +1,222 @@
+package zzw.limit;
+
+import aqs.lock.Lock;
+import aqs.lock.ReentrantLock;
+import aqs.synchronization_tool.Semaphore;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>自适应并发限制器, 根据观测到的往返时延在运行时调整许可数
+ * <p>获取许可: acquire() / tryAcquire()
+ * <p>释放许可: onSuccess(rtt) 采样并调整 limit, onDropped() 说明下游过载, onIgnore() 不采样
+ * <p>limit 增大时调用 Semaphore.release(delta), limit 减小时调用 Semaphore.reducePermits(delta)
+ * <p>reducePermits() 可以让许可变为负数, 此时正在执行的调用释放的许可会先抵消负数, 不会打断已经获取许可的调用
+ */
+public class AdaptiveLimiter {
+
+    /**
+     * 暴露 Semaphore.reducePermits()
+     */
+    private static final class LimitSemaphore extends Semaphore {
+
+        LimitSemaphore(int permits) {
+            super(permits);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+    // =================================================================================================================
+
+    private final LimitAlgorithm algorithm;
+    private final LimitSemaphore semaphore;
+    private final Lock           updateLock = new ReentrantLock();
+
+    private volatile int limit;
+
+    private final AtomicInteger inflight     = new AtomicInteger();
+    private final LongAdder     successCount = new LongAdder();
+    private final LongAdder     droppedCount = new LongAdder();
+    private final LongAdder     rejectCount  = new LongAdder();
+    private final LongAdder     skippedCount = new LongAdder();
+
+    public AdaptiveLimiter(LimitAlgorithm algorithm) {
+        if (algorithm == null) throw new NullPointerException();
+        this.algorithm = algorithm;
+        this.limit = algorithm.getInitialLimit();
+        this.semaphore = new LimitSemaphore(limit);
+    }
+
+    // 获取许可 =========================================================================================================
+
+    public void acquire() throws InterruptedException {
+        semaphore.acquire();
+        inflight.incrementAndGet();
+    }
+
+    public void acquireUninterruptibly() {
+        semaphore.acquireUninterruptibly();
+        inflight.incrementAndGet();
+    }
+
+    /**
+     * 没有许可时立即返回 false
+     */
+    public boolean tryAcquire() {
+        if (semaphore.tryAcquire()) {
+            inflight.incrementAndGet();
+            return true;
+        }
+        rejectCount.increment();
+        return false;
+    }
+
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        if (semaphore.tryAcquire(timeout, unit)) {
+            inflight.incrementAndGet();
+            return true;
+        }
+        rejectCount.increment();
+        return false;
+    }
+
+    // 释放许可 =========================================================================================================
+
+    /**
+     * 调用成功, 释放许可并用 rtt 调整 limit
+     */
+    public void onSuccess(long rttNanos) {
+        successCount.increment();
+        onSample(rttNanos, false);
+    }
+
+    /**
+     * 调用超时 OR 被下游拒绝, 释放许可并收缩 limit
+     */
+    public void onDropped() {
+        droppedCount.increment();
+        onSample(0L, true);
+    }
+
+    /**
+     * 释放许可, 不采样(例如调用因为参数错误失败, rtt 没有参考价值)
+     */
+    public void onIgnore() {
+        inflight.decrementAndGet();
+        semaphore.release();
+    }
+
+    /**
+     * <p>成功的采样只 tryLock(): 其它线程正在调整 limit 时直接丢弃本次采样, 完成调用的线程不会在 updateLock 上排队
+     * <p>高并发时大部分采样被丢弃, 算法看到的是均匀抽样的 rtt, 对 EMA / AIMD 来说足够; 空闲时每个采样都会被使用
+     * <p>dropped 是过载信号, 必须让 limit 收缩, 所以仍然阻塞获取 updateLock
+     */
+    private void onSample(long rttNanos, boolean dropped) {
+        int current = inflight.getAndDecrement();
+
+        final Lock lock = this.updateLock;
+        if (dropped) lock.lock();
+        else if (!lock.tryLock()) {
+            skippedCount.increment();
+            semaphore.release();
+            return;
+        }
+        try {
+            resize(algorithm.update(limit, rttNanos, current, dropped));
+        } finally {
+            lock.unlock();
+        }
+
+        semaphore.release();
+    }
+
+    /**
+     * 持有 updateLock 才能调用
+     */
+    private void resize(int newLimit) {
+        int delta = newLimit - limit;
+        if (delta > 0) semaphore.release(delta);
+        else if (delta < 0) semaphore.reduce(-delta);
+        limit = newLimit;
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 阻塞获取许可, 执行 callable, 并根据执行结果释放许可
+     */
+    public <T> T call(Callable<T> callable) throws Exception {
+        acquire();
+        long start = System.nanoTime();
+        try {
+            T result = callable.call();
+            onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            onIgnore();
+            throw e;
+        } catch (Error e) {
+            onIgnore();
+            throw e;
+        }
+    }
+
+    /**
+     * 手动调整 limit, 被限制在 LimitAlgorithm 的 [minLimit, maxLimit] 之内, 之后 LimitAlgorithm 会在新的 limit 基础上继续调整
+     */
+    public void setLimit(int newLimit) {
+        if (newLimit <= 0) throw new IllegalArgumentException();
+
+        final Lock lock = this.updateLock;
+        lock.lock();
+        try {
+            resize(Math.min(algorithm.getMaxLimit(), Math.max(algorithm.getMinLimit(), newLimit)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public int availablePermits() {
+        return semaphore.availablePermits();
+    }
+
+    public long getSuccessCount() {
+        return successCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * tryAcquire() 获取许可失败的次数
+     */
+    public long getRejectCount() {
+        return rejectCount.sum();
+    }
+
+    /**
+     * updateLock 被占用而丢弃的采样数
+     */
+    public long getSkippedSampleCount() {
+        return skippedCount.sum();
+    }
+
+    public String toString() {
+        return super.toString() + "[Limit = " + limit + ", Inflight = " + inflight.get() + "]";
+    }
+}
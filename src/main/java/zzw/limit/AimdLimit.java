@@ -0,0 +1,56 @@
+package zzw.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>加性增、乘性减(AIMD)
+ * <p>调用成功且许可被充分使用时 limit + 1
+ * <p>调用被丢弃 OR rtt 超过 timeout 时 limit * backoffRatio
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    private final int    initialLimit;
+    private final int    minLimit;
+    private final int    maxLimit;
+    private final double backoffRatio;
+    private final long   timeoutNanos;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, 0.9, 5, TimeUnit.SECONDS);
+    }
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long timeout, TimeUnit unit) {
+        if (minLimit <= 0 || minLimit > maxLimit) throw new IllegalArgumentException();
+        if (initialLimit < minLimit || initialLimit > maxLimit) throw new IllegalArgumentException();
+        if (backoffRatio <= 0.0 || backoffRatio >= 1.0) throw new IllegalArgumentException();
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    @Override
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    @Override
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    @Override
+    public int update(int limit, long rttNanos, int inflight, boolean dropped) {
+        int newLimit;
+        if (dropped || rttNanos > timeoutNanos) newLimit = (int) (limit * backoffRatio);
+        else if (inflight * 2 >= limit) newLimit = limit + 1; // 只有许可被充分使用时才增加, 避免空闲时 limit 无限增长
+        else newLimit = limit;
+        return Math.min(maxLimit, Math.max(minLimit, newLimit));
+    }
+}
@@ -0,0 +1,74 @@
+package zzw.limit;
+
+/**
+ * <p>梯度算法(类似 TCP Vegas)
+ * <p>longRtt 是 rtt 的长期指数移动平均, 近似于无排队时的 rtt
+ * <p>gradient = tolerance * longRtt / rtt, 取值范围 [0.5, 1.0]
+ * <p>rtt 升高说明下游开始排队, gradient < 1 使 limit 收缩; rtt 接近 longRtt 时 gradient = 1, limit 加上 sqrt(limit) 的排队余量后增长
+ * <p>newLimit 经过 smoothing 平滑, 避免 limit 剧烈抖动
+ */
+public class GradientLimit implements LimitAlgorithm {
+
+    private final int    initialLimit;
+    private final int    minLimit;
+    private final int    maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final int    longWindow;
+
+    private double longRtt;   // rtt 长期指数移动平均
+    private double estimated; // 未取整的 limit
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, 0.2, 1.5, 600);
+    }
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double tolerance, int longWindow) {
+        if (minLimit <= 0 || minLimit > maxLimit) throw new IllegalArgumentException();
+        if (initialLimit < minLimit || initialLimit > maxLimit) throw new IllegalArgumentException();
+        if (smoothing <= 0.0 || smoothing > 1.0 || tolerance < 1.0 || longWindow <= 0) throw new IllegalArgumentException();
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.longWindow = longWindow;
+        this.estimated = initialLimit;
+    }
+
+    @Override
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    @Override
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    @Override
+    public int update(int limit, long rttNanos, int inflight, boolean dropped) {
+        final double rtt = Math.max(1L, rttNanos);
+        if ((int) estimated != limit) estimated = limit; // limit 被 AdaptiveLimiter.setLimit() 手动调整过
+
+        if (longRtt == 0.0) longRtt = rtt;
+        else longRtt += (rtt - longRtt) / longWindow;
+
+        // 负载下降后 rtt 远小于 longRtt, 让 longRtt 快速回落
+        if (longRtt / rtt > 2.0) longRtt *= 0.95;
+
+        // 许可没有被充分使用时不调整, 避免空闲时 limit 无限增长
+        if (!dropped && inflight * 2 < limit) return limit;
+
+        double gradient = dropped ? 0.5 : Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+        double newLimit = estimated * gradient + Math.sqrt(estimated);
+        newLimit = estimated * (1 - smoothing) + newLimit * smoothing;
+        estimated = Math.min(maxLimit, Math.max(minLimit, newLimit));
+        return (int) estimated;
+    }
+}
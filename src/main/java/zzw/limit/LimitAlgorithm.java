@@ -0,0 +1,29 @@
+package zzw.limit;
+
+/**
+ * <p>并发限制算法, 根据观测到的往返时延 rtt 计算新的并发限制
+ * <p>update() 只会在 AdaptiveLimiter 的更新锁内被调用, 实现类不需要保证线程安全; 锁被占用时该次采样被丢弃
+ */
+public interface LimitAlgorithm {
+
+    /**
+     * 初始并发限制
+     */
+    int getInitialLimit();
+
+    /**
+     * update() 返回值的下限, AdaptiveLimiter.setLimit() 也会被限制在 [getMinLimit(), getMaxLimit()] 之内
+     */
+    int getMinLimit();
+
+    int getMaxLimit();
+
+    /**
+     * @param limit    当前并发限制
+     * @param rttNanos 本次调用的往返时延
+     * @param inflight 本次调用完成前正在执行的调用数(包含本次调用)
+     * @param dropped  本次调用是否超时 OR 被拒绝
+     * @return 新的并发限制
+     */
+    int update(int limit, long rttNanos, int inflight, boolean dropped);
+}
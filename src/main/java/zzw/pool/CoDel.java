@@ -0,0 +1,53 @@
+package zzw.pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p>DefaultThreadPool 任务队列的 CoDel(Controlled Delay) 配置, 通过 DefaultThreadPool.setCoDel() 启用
+ * <p>worker 取任务时记录队头任务的排队时间(sojourn), 每个 interval 结束时检查这个 interval 内的最小排队时间:
+ * 最小值也超过 target 说明队列中有消化不掉的积压(standing queue), 进入过载状态, 直到某个 interval 的最小值回到 target 以下
+ * <p>只看最小值, 突发流量造成的短暂排队不会触发过载; 队列被取空时立即退出过载状态
+ * <p>过载时 DROP: 按 FIFO 取任务, 丢弃排队时间超过 target 的任务
+ * <p>过载时 LIFO: 先执行最新提交的任务, 它们的调用者还在等待结果; 排队时间超过 interval 的队头任务被丢弃
+ * <p>被丢弃的 Future 会被取消, 然后在 worker 线程(不持有锁)中调用 onDrop, 调用者可以借此立即返回失败
+ */
+public final class CoDel {
+
+    public enum Mode {
+        DROP, LIFO
+    }
+
+    private static final long DEFAULT_TARGET_MILLIS   = 5;
+    private static final long DEFAULT_INTERVAL_MILLIS = 100;
+
+    final long               targetNanos;
+    final long               intervalNanos;
+    final Mode               mode;
+    final Consumer<Runnable> onDrop;
+
+    /**
+     * target 5 ms, interval 100 ms, 没有回调
+     */
+    public CoDel(Mode mode) {
+        this(DEFAULT_TARGET_MILLIS, DEFAULT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, mode, null);
+    }
+
+    /**
+     * onDrop 可以为 null
+     */
+    public CoDel(long target, long interval, TimeUnit unit, Mode mode, Consumer<Runnable> onDrop) {
+        if (target <= 0 || interval <= 0) throw new IllegalArgumentException();
+        if (mode == null) throw new NullPointerException();
+        this.targetNanos = unit.toNanos(target);
+        this.intervalNanos = unit.toNanos(interval);
+        this.mode = mode;
+        this.onDrop = onDrop;
+    }
+
+    @Override
+    public String toString() {
+        return "CoDel(" + mode + ", target=" + TimeUnit.NANOSECONDS.toMillis(targetNanos)
+                + "ms, interval=" + TimeUnit.NANOSECONDS.toMillis(intervalNanos) + "ms)";
+    }
+}
@@ -5,11 +5,25 @@ import aqs.lock.Lock;
 import aqs.lock.ReentrantLock;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * <p>线程数弹性伸缩的线程池
+ * <p>启动时只创建 MIN_WORKER_NUMBERS 个 worker, 提交任务时如果没有空闲 worker 并且 worker 数小于 corePoolSize, 则创建新 worker
+ * <p>队列中最早的任务等待时间超过 queueDelayThreshold 并且没有空闲 worker 时, 继续创建 worker, 直到 maximumPoolSize
+ * <p>超过 corePoolSize 的 worker 空闲 keepAlive 之后退出, corePoolSize / maximumPoolSize 可以在运行时调整
+ * <p>execute(task, deadline) 的任务按截止时间最早优先(EDF)执行, 过期的任务被丢弃; 没有截止时间的任务依然是 FIFO, 只多一次判空
+ * <p>队列已满时的行为由构造时指定的 SaturationPolicy 决定; 排队过久时可以通过 CoDel 丢弃任务 OR 切换为 LIFO
+ * <p>可以让少量空闲 worker 在 park 之前先自旋一段时间(setIdleSpin), 用 CPU 换取更低的交接延迟
+ * <p>worker 一次加锁最多取出 batchSize 个任务; 提交任务时只唤醒与任务数相当的空闲 worker, 已经被唤醒但还没醒来的 worker 不会被重复计算
+ */
 public class DefaultThreadPool implements ThreadPool {
 
     private class Worker implements Runnable {
@@ -19,27 +33,224 @@ public class DefaultThreadPool implements ThreadPool {
          */
         private volatile boolean running = true;
 
+        /**
+         * 一次加锁取出的任务
+         */
+        private final Task[] batch = new Task[MAX_BATCH_SIZE];
+
+        /**
+         * 一次加锁时被 CoDel 丢弃的任务, 解锁后处理
+         */
+        private final ArrayList<Task> dropped = new ArrayList<>();
+
+        /**
+         * 一次加锁时发现已经过了截止时间的任务, 解锁后处理
+         */
+        private final ArrayList<Task> expired = new ArrayList<>();
+
         @Override
         public void run() {
-            while (running) {
-                Runnable task;
+            try {
+                while (running) {
+                    int n = getTasks();
+                    if (n < 0) return; // 关闭 OR 空闲超时
+                    if (!dropped.isEmpty() || !expired.isEmpty()) shed();
 
+                    for (int i = 0; i < n; i++) {
+                        Task task = batch[i];
+                        batch[i] = null;
+                        if (!running) cancel(task.runnable); // shutdown() 之后丢弃这一批剩余的任务, 与队列中剩余的任务一样
+                        else if (task.hasDeadline && task.deadline - System.nanoTime() < 0L) expire(task.runnable); // 等待这一批前面的任务时过期
+                        else runTask(task);
+                    }
+                }
+            } finally {
                 lock.lock();
                 try {
-                    while (taskQueue.isEmpty()) notEmpty.await();
-                    task = taskQueue.removeFirst();
-                } catch (InterruptedException e) {
-                    return;
+                    workers.remove(this);
                 } finally {
                     lock.unlock();
                 }
+            }
+        }
+
+        private void runTask(Task task) {
+            long    start   = System.nanoTime();
+            boolean success = false;
+            metrics.recordWait(start - task.enqueueTime);
+            try {
+                task.runnable.run();
+                success = true;
+            } catch (Throwable e) {
+                // 不再吞掉异常, 交给线程的 UncaughtExceptionHandler, worker 继续执行下一个任务
+                Thread t = Thread.currentThread();
+                t.getUncaughtExceptionHandler().uncaughtException(t, e);
+            } finally {
+                metrics.recordRun(System.nanoTime() - start, success);
+            }
+        }
 
+        /**
+         * 通知被丢弃 OR 过期的任务(Droppable.drop()), 然后对被 CoDel 丢弃的任务调用 CoDel 的 onDrop
+         */
+        private void shed() {
+            for (Task task : expired) expire(task.runnable);
+            expired.clear();
+
+            CoDel c = codel;
+            metrics.recordShed(dropped.size());
+            for (Task task : dropped) {
+                cancel(task.runnable);
+                if (c == null || c.onDrop == null) continue;
                 try {
-                    task.run();
-                } catch (Exception ignore) {
-                    // 忽略异常
+                    c.onDrop.accept(task.runnable);
+                } catch (Throwable e) {
+                    Thread t = Thread.currentThread();
+                    t.getUncaughtExceptionHandler().uncaughtException(t, e);
+                }
+            }
+            dropped.clear();
+        }
+
+        /**
+         * 一次加锁最多取出 batchSize 个任务放入 batch, 返回取出的任务数, 返回 -1 表示这个 worker 应该退出<br>
+         * 最多取走队列的 1 / workers.size(), 不让一个 worker 独占队列中的任务<br>
+         * 启用 CoDel 时被丢弃的任务放入 dropped, 过期的任务放入 expired, 可能返回 0
+         */
+        private int getTasks() {
+            lock.lock();
+            try {
+                long    nanos = keepAliveNanos;
+                boolean spun  = false;
+                while (queued() == 0) {
+                    if (!running) return -1;
+                    codelOverloaded = false; // 队列被取空, 退出过载状态
+                    codelIntervalEnd = 0L;
+
+                    int size = workers.size();
+                    if (size > maximumPoolSize) return retire(); // maximumPoolSize 被调小
+                    if (!spun && idleSpinNanos > 0L && spinningWorkers < maxSpinningWorkers) {
+                        spun = true; // 每次取任务最多自旋一次, 没有等到任务再 await()
+                        spin();
+                        continue;
+                    }
+                    idleWorkers++;
+                    long idleStart = System.nanoTime();
+                    try {
+                        if (size <= corePoolSize) {
+                            notEmpty.await();
+                            nanos = keepAliveNanos;
+                        } else if (nanos > 0L) {
+                            nanos = notEmpty.awaitNanos(nanos);
+                        } else {
+                            return retire(); // 空闲超时
+                        }
+                    } finally {
+                        idleWorkers--;
+                        if (signalled > 0) signalled--; // 被 signalWork() 唤醒 OR 超时, 超时多减只会导致之后多唤醒, 不会丢失唤醒
+                        metrics.recordIdle(System.nanoTime() - idleStart);
+                    }
+                }
+
+                long  now       = System.nanoTime();
+                long  headDelay = now - headEnqueueTime();
+                int   workerNum = workers.size();
+                int   limit     = Math.min(batchSize, (queued() + workerNum - 1) / workerNum);
+                CoDel c         = codel;
+                int   n         = 0;
+                if (c == null && deadlineQueue.isEmpty()) {
+                    for (; n < limit; n++) batch[n] = taskQueue.removeFirst(); // 只有 FIFO 任务
+                }
+                while (n < limit && queued() > 0) {
+                    Task task;
+                    if (deadlineFirst()) {
+                        task = deadlineQueue.poll();
+                        if (task.deadline - now < 0L) {
+                            expired.add(task);
+                            continue;
+                        }
+                    } else if (c == null) {
+                        task = taskQueue.removeFirst();
+                    } else if ((task = pollCoDel(c, now)) == null) {
+                        continue; // 被 CoDel 丢弃
+                    }
+                    batch[n++] = task;
+                }
+                queueChanged();
+                if (blockedSubmitters > 0) notFull.signalAll();
+                // 队头任务已经等待过久, 后面的任务只会等待更久, 提前扩容
+                if (queued() > 0 && headDelay > queueDelayThresholdNanos) {
+                    tryAddWorker(maximumPoolSize);
+                }
+                return n;
+            } catch (InterruptedException e) {
+                return -1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 持有锁才能调用, 释放锁后自旋最多 idleSpinNanos, 直到队列不为空, 返回前重新加锁<br>
+         * 用 yield() 而不是空转, 单核时提交者也能及时得到 CPU
+         */
+        private void spin() {
+            spinningWorkers++;
+            lock.unlock();
+            long    start    = System.nanoTime();
+            long    deadline = start + idleSpinNanos;
+            boolean hit      = false;
+            try {
+                for (; ; ) {
+                    if (headEnqueueTime != 0L) { // 不加锁读取, 队列为空时为 0
+                        hit = true;
+                        break;
+                    }
+                    if (System.nanoTime() - deadline >= 0L) break;
+                    Thread.yield();
                 }
+            } finally {
+                lock.lock();
+                spinningWorkers--;
+                metrics.recordSpin(System.nanoTime() - start, hit);
+            }
+        }
+
+        /**
+         * 持有锁并且 FIFO 队列不为空才能调用, 按照 CoDel 从 FIFO 队列中取出一个任务, 被丢弃时放入 dropped 并返回 null
+         */
+        private Task pollCoDel(CoDel c, long now) {
+            long sojourn = now - taskQueue.getFirst().enqueueTime; // 队头就是等待最久的任务
+            if (codelIntervalEnd == 0L) {
+                codelIntervalEnd = now + c.intervalNanos; // 队列变为非空, 开始新的 interval
+            } else if (now - codelIntervalEnd >= 0L) {
+                codelOverloaded = codelMinSojourn > c.targetNanos;
+                codelMinSojourn = Long.MAX_VALUE;
+                codelIntervalEnd = now + c.intervalNanos;
+            }
+            codelMinSojourn = Math.min(codelMinSojourn, sojourn);
+
+            if (!codelOverloaded) return taskQueue.removeFirst();
+            if (c.mode == CoDel.Mode.DROP) {
+                Task task = taskQueue.removeFirst();
+                if (sojourn <= c.targetNanos) return task;
+                dropped.add(task);
+                return null;
+            }
+            if (sojourn > c.intervalNanos) {
+                dropped.add(taskQueue.removeFirst()); // LIFO: 过期的队头直接丢弃
+                return null;
             }
+            return taskQueue.removeLast();
+        }
+
+        /**
+         * 持有锁才能调用
+         */
+        private int retire() {
+            running = false;
+            workers.remove(this);
+            return -1;
         }
 
         public void shutdown() {
@@ -47,90 +258,540 @@ public class DefaultThreadPool implements ThreadPool {
         }
     }
 
+    /**
+     * 队列中的任务, 记录入队时间用于计算排队延迟
+     */
+    private static final class Task {
+        final Runnable runnable;
+        final long     enqueueTime;
+        final long     deadline;    // 只对 deadlineQueue 中的任务有意义
+        final boolean  hasDeadline;
+
+        Task(Runnable runnable, long enqueueTime) {
+            this.runnable = runnable;
+            this.enqueueTime = enqueueTime;
+            this.deadline = 0L;
+            this.hasDeadline = false;
+        }
+
+        Task(Runnable runnable, long enqueueTime, long deadline) {
+            this.runnable = runnable;
+            this.enqueueTime = enqueueTime;
+            this.deadline = deadline;
+            this.hasDeadline = true;
+        }
+    }
+
     // ==================================================================================
 
-    private static final int DEFAULT_WORKER_NUMBERS  = 5;    // 默认线程数
-    private static final int MIN_WORKER_NUMBERS      = 1;    // 最小线程数
-    private static final int MAX_WORKER_NUMBERS      = 10;   // 最大线程数
-    private static final int DEFAULT_WORK_QUEUE_SIZE = 100;  // 工作队列默认大小
+    private static final int  DEFAULT_WORKER_NUMBERS        = 5;      // 默认线程数
+    private static final int  MIN_WORKER_NUMBERS            = 1;      // 最小线程数
+    private static final int  MAX_WORKER_NUMBERS            = 10;     // 最大线程数
+    private static final int  DEFAULT_WORK_QUEUE_SIZE       = 100;    // 工作队列默认大小
+    private static final long DEFAULT_KEEP_ALIVE_MILLIS     = 10_000; // 非核心 worker 的空闲存活时间
+    private static final long DEFAULT_QUEUE_DELAY_THRESHOLD = 5;      // 排队延迟超过 5 ms 时扩容
+    private static final int  DEFAULT_BATCH_SIZE            = 16;     // worker 一次加锁最多取出的任务数
+    private static final int  MAX_BATCH_SIZE                = 256;
+    private static final long DEFAULT_IMPLICIT_DEADLINE     = 1_000;  // 没有截止时间的任务, 按入队后 1 s 参与 EDF 比较
 
     private final Lock      lock     = new ReentrantLock();
     private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull  = lock.newCondition(); // 只有 BLOCK / THROTTLE 策略的提交者会等待
 
     /**
      * 等待队列
      */
-    private final LinkedList<Runnable> taskQueue;
-    private final int                  capacity;
+    private final LinkedList<Task> taskQueue;
+    private final int              capacity;
+
+    /**
+     * 带截止时间的任务, 按 deadline 排序的二叉堆, 与 taskQueue 共用 lock 和容量
+     */
+    private final PriorityQueue<Task> deadlineQueue = new PriorityQueue<>((a, b) -> Long.signum(a.deadline - b.deadline));
+    private final SaturationPolicy policy;
+    private volatile long          headEnqueueTime; // 队头任务的入队时间, 持有锁时写入, THROTTLE 策略不加锁读取; 队列为空时为 0
 
-    private final int          workerNum;
+    // 持有锁才能修改
     private final List<Worker> workers;
-    private final AtomicLong   threadNum = new AtomicLong();
+    private int                idleWorkers;
+    private int                signalled;   // 已经 signal() 但还没有醒来的空闲 worker
+    private int                blockedSubmitters;
+    private int                spinningWorkers; // 释放锁自旋等待任务的 worker, 不计入 idleWorkers
+    private List<Task>         discarded;       // DISCARD_OLDEST 丢弃的任务, 解锁后通知, 通常为 null
+
+    // CoDel, codel 可以不加锁读取, 其它字段持有锁才能访问
+    private volatile CoDel codel;
+    private long           codelIntervalEnd; // 当前 interval 的结束时间, 0 表示队列为空之后还没有开始
+    private long           codelMinSojourn = Long.MAX_VALUE;
+    private boolean        codelOverloaded;
+    private int                peakWorkers;
+    private boolean            isShutdown;
+
+    private volatile int  corePoolSize;
+    private volatile int  maximumPoolSize;
+    private volatile long keepAliveNanos;
+    private volatile long queueDelayThresholdNanos;
+    private volatile int  batchSize = DEFAULT_BATCH_SIZE;
+    private volatile long implicitDeadlineNanos;
+    private volatile long idleSpinNanos;      // 0 表示不自旋
+    private volatile int  maxSpinningWorkers;
+
+    private final AtomicLong        threadNum = new AtomicLong();
+    private final ThreadPoolMetrics metrics   = new ThreadPoolMetrics();
 
     public DefaultThreadPool() {
         this(DEFAULT_WORKER_NUMBERS, DEFAULT_WORK_QUEUE_SIZE);
     }
 
+    /**
+     * threadNum 被限制在 [MIN_WORKER_NUMBERS, MAX_WORKER_NUMBERS] 之间作为 corePoolSize, 负载升高时最多扩容到 MAX_WORKER_NUMBERS
+     */
     public DefaultThreadPool(int threadNum, int taskQueueSize) {
-        if (threadNum > MAX_WORKER_NUMBERS) this.workerNum = MAX_WORKER_NUMBERS;
-        else this.workerNum = Math.max(threadNum, MIN_WORKER_NUMBERS);
+        this(Math.min(Math.max(threadNum, MIN_WORKER_NUMBERS), MAX_WORKER_NUMBERS), MAX_WORKER_NUMBERS, taskQueueSize,
+                DEFAULT_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+    }
 
-        workers = new ArrayList<>(threadNum);
-        initializeWorkers(threadNum);
+    public DefaultThreadPool(int corePoolSize, int maximumPoolSize, int taskQueueSize, long keepAliveTime, TimeUnit unit) {
+        this(corePoolSize, maximumPoolSize, taskQueueSize, keepAliveTime, unit, SaturationPolicy.ABORT);
+    }
+
+    /**
+     * policy: 队列已满 OR 排队过久时对提交者的处理策略
+     */
+    public DefaultThreadPool(int corePoolSize, int maximumPoolSize, int taskQueueSize, long keepAliveTime, TimeUnit unit,
+                             SaturationPolicy policy) {
+        if (corePoolSize < MIN_WORKER_NUMBERS || maximumPoolSize < corePoolSize || taskQueueSize <= 0 || keepAliveTime < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (policy == null) throw new NullPointerException();
+        this.policy = policy;
+        this.corePoolSize = corePoolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.keepAliveNanos = unit.toNanos(keepAliveTime);
+        this.queueDelayThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_QUEUE_DELAY_THRESHOLD);
+        this.implicitDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_IMPLICIT_DEADLINE);
 
+        // 先初始化队列再启动 worker, 否则 worker 可能看到 taskQueue == null
         taskQueue = new LinkedList<>();
         capacity = taskQueueSize;
+
+        workers = new ArrayList<>(maximumPoolSize);
+        lock.lock();
+        try {
+            for (int i = 0; i < MIN_WORKER_NUMBERS; i++) tryAddWorker(corePoolSize);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * 初始化 workers
+     * 持有锁才能调用, worker 数小于 limit 时创建一个新 worker
      */
-    private void initializeWorkers(int num) {
-        for (int i = 0; i < num; i++) {
-            Worker worker = new Worker();
-            workers.add(worker);
-            Thread thread = new Thread(worker, "ThreadPool-Worker-" + threadNum.incrementAndGet());
-            thread.start();
-        }
+    private boolean tryAddWorker(int limit) {
+        if (isShutdown || workers.size() >= limit) return false;
+
+        Worker worker = new Worker();
+        workers.add(worker);
+        peakWorkers = Math.max(peakWorkers, workers.size());
+        Thread thread = new Thread(worker, "ThreadPool-Worker-" + threadNum.incrementAndGet());
+        thread.start();
+        return true;
     }
 
     // ==================================================================================
 
+    /**
+     * 队列已满时按照饱和策略处理, 默认抛出 RejectedExecutionException
+     */
     @Override
     public void execute(Runnable task) {
+        execute(task, 0L, false);
+    }
+
+    /**
+     * 带截止时间的任务, deadlineNanos 是 System.nanoTime() 的绝对时间<br>
+     * 按截止时间最早优先(EDF)执行, 没有截止时间的任务以 入队时间 + implicitDeadline 参与比较, 不会被饿死<br>
+     * 提交时 OR 取出时已经过了截止时间的任务不再执行, 如果是 Future 则被取消
+     */
+    public void execute(Runnable task, long deadlineNanos) {
+        if (task == null) throw new NullPointerException();
+        if (deadlineNanos - System.nanoTime() < 0L) {
+            expire(task);
+            return;
+        }
+        execute(task, deadlineNanos, true);
+    }
+
+    private void execute(Runnable task, long deadline, boolean hasDeadline) {
         if (task == null) throw new NullPointerException();
-        if (taskQueue.size() == capacity) throw new RejectedExecutionException();
+        throttle();
 
+        boolean callerRuns;
         lock.lock();
         try {
-            if (taskQueue.size() == capacity) throw new RejectedExecutionException();
-            taskQueue.add(task);
-            notEmpty.signal();
+            callerRuns = !makeRoom(1);
+            if (!callerRuns) {
+                long now = System.nanoTime();
+                if (hasDeadline) deadlineQueue.add(new Task(task, now, deadline));
+                else taskQueue.add(new Task(task, now));
+                queueChanged();
+
+                growIfNeeded(now);
+                signalWork();
+            }
         } finally {
-            lock.unlock();
+            unlockAndDropDiscarded();
         }
+        if (callerRuns) task.run(); // 不持有锁执行
     }
 
+    /**
+     * 一次加锁放入所有任务, 剩余容量不足时按照饱和策略处理, 不会只放入一部分任务<br>
+     * CALLER_RUNS 时所有任务都在调用者线程中执行; 任务数超过队列容量时直接拒绝
+     */
     @Override
-    public int getWaitingTaskCount() {
+    public void executeAll(Collection<? extends Runnable> tasks) {
+        for (Runnable task : tasks) if (task == null) throw new NullPointerException();
+        if (tasks.isEmpty()) return;
+        throttle();
+
+        boolean callerRuns;
         lock.lock();
         try {
-            return taskQueue.size();
+            callerRuns = !makeRoom(tasks.size());
+            if (!callerRuns) {
+                long now = System.nanoTime();
+                for (Runnable task : tasks) taskQueue.add(new Task(task, now));
+                queueChanged();
+
+                for (int n = tasks.size(); n > 0 && idleWorkers < n; n--) {
+                    if (!growIfNeeded(now)) break; // 空闲 worker 不够时, 每个任务最多对应一个新 worker
+                }
+                signalWork();
+            }
         } finally {
-            lock.unlock();
+            unlockAndDropDiscarded();
+        }
+        if (callerRuns) for (Runnable task : tasks) task.run();
+    }
+
+    /**
+     * 持有锁才能调用, 保证队列有 n 个空位: 返回 true 表示可以入队, false 表示应该由调用者线程执行 (CALLER_RUNS)<br>
+     * 已经关闭、超时、被中断 OR ABORT 时抛出 RejectedExecutionException
+     */
+    private boolean makeRoom(int n) {
+        if (isShutdown || n > capacity) throw reject(n);
+        if (queued() + n <= capacity) return true;
+
+        switch (policy.kind) {
+            case CALLER_RUNS:
+                metrics.recordCallerRuns(n);
+                return false;
+            case DISCARD_OLDEST:
+                while (queued() + n > capacity) discard(taskQueue.isEmpty() ? deadlineQueue.poll() : taskQueue.removeFirst());
+                queueChanged();
+                return true;
+            case BLOCK:
+            case THROTTLE:
+                metrics.recordBlocked();
+                long nanos = policy.timeoutNanos;
+                blockedSubmitters++;
+                try {
+                    while (queued() + n > capacity) {
+                        if (isShutdown || nanos <= 0L) throw reject(n);
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw reject(n);
+                } finally {
+                    blockedSubmitters--;
+                }
+                if (isShutdown) throw reject(n);
+                return true;
+            default:
+                throw reject(n);
         }
     }
 
+    /**
+     * 持有锁才能调用, 被丢弃的任务在解锁后按 Droppable.drop() 通知: Droppable 调用 onDrop(), Future 被取消
+     */
+    private void discard(Task task) {
+        metrics.recordDiscarded();
+        if (discarded == null) discarded = new ArrayList<>();
+        discarded.add(task); // onDrop() 可能加其它锁 OR 执行回调, 解锁之后再通知
+    }
+
+    /**
+     * 持有锁才能调用, 解锁后通知这次加锁期间 discard() 的任务
+     */
+    private void unlockAndDropDiscarded() {
+        List<Task> dropped = discarded;
+        discarded = null;
+        lock.unlock();
+        if (dropped != null) for (Task task : dropped) cancel(task.runnable);
+    }
+
+    /**
+     * THROTTLE: 队头任务排队过久时, 不持有锁暂停提交者, 暂停时间与超出的排队时间成正比
+     */
+    private void throttle() {
+        if (policy.kind != SaturationPolicy.Kind.THROTTLE) return;
+        long head = headEnqueueTime;
+        if (head == 0L) return;
+        long pause = policy.pauseNanos(System.nanoTime() - head);
+        if (pause <= 0L) return;
+        metrics.recordThrottled(pause);
+        LockSupport.parkNanos(this, pause);
+    }
+
+    /**
+     * 过期的任务不再执行, 按 Droppable.drop() 通知
+     */
+    private void expire(Runnable task) {
+        metrics.recordExpired();
+        cancel(task);
+    }
+
+    /**
+     * 不再执行的任务: Droppable 调用 onDrop(), Future 被取消, 等待它的线程会收到 CancellationException 而不是永远阻塞
+     */
+    private static void cancel(Runnable task) {
+        Droppable.drop(task);
+    }
+
+    /**
+     * 持有锁才能调用, 队列被修改后更新不加锁读取的字段
+     */
+    private void queueChanged() {
+        metrics.updateQueueDepth(queued());
+        headEnqueueTime = queued() == 0 ? 0L : headEnqueueTime();
+    }
+
+    /**
+     * 持有锁才能调用, 两个队列中的任务总数
+     */
+    private int queued() {
+        return taskQueue.size() + deadlineQueue.size();
+    }
+
+    /**
+     * 持有锁并且队列不为空才能调用, FIFO 队头的入队时间, FIFO 队列为空时用 deadline 堆顶任务的入队时间近似
+     */
+    private long headEnqueueTime() {
+        return taskQueue.isEmpty() ? deadlineQueue.peek().enqueueTime : taskQueue.getFirst().enqueueTime;
+    }
+
+    /**
+     * 持有锁才能调用, 下一个任务是否从 deadlineQueue 中取出: deadline 堆顶与 FIFO 队头的隐式截止时间比较
+     */
+    private boolean deadlineFirst() {
+        if (deadlineQueue.isEmpty()) return false;
+        if (taskQueue.isEmpty()) return true;
+        return deadlineQueue.peek().deadline - (taskQueue.getFirst().enqueueTime + implicitDeadlineNanos) <= 0L;
+    }
+
+    /**
+     * 持有锁才能调用, 没有空闲 worker 时先补足核心 worker, 队头等待过久时继续扩容到最大值
+     */
+    private boolean growIfNeeded(long now) {
+        if (idleWorkers > 0) return false;
+        if (tryAddWorker(corePoolSize)) return true;
+        return now - headEnqueueTime() > queueDelayThresholdNanos && tryAddWorker(maximumPoolSize);
+    }
+
+    /**
+     * 持有锁才能调用, 合并唤醒: 已经被唤醒但还没有醒来的 worker 醒来后会取走队列中的任务,
+     * 只有队列中的任务数超过它们的数量时才唤醒更多空闲 worker, 每个任务最多唤醒一个 worker<br>
+     * 正在自旋的 worker 会自己发现新任务, 不需要唤醒
+     */
+    private void signalWork() {
+        int wake = Math.min(idleWorkers, queued() - spinningWorkers) - signalled;
+        for (; wake > 0; wake--) {
+            signalled++;
+            notEmpty.signal();
+        }
+    }
+
+    /**
+     * 记录 n 个被拒绝的任务
+     */
+    private RejectedExecutionException reject(int n) {
+        metrics.recordRejected(n);
+        return new RejectedExecutionException();
+    }
+
+    /**
+     * 不加锁, 读取的是持有锁时记录的队列深度
+     */
+    @Override
+    public int getWaitingTaskCount() {
+        return metrics.getQueueDepth();
+    }
+
+    /**
+     * 不再接受新任务, worker 执行完当前任务后退出, 队列中剩余的任务 OR worker 已经取出但还没有执行的任务不再执行,
+     * 其中的 Future 被取消
+     */
     @Override
     public void shutdown() {
-        synchronized (workers) {
+        List<Task> remaining = new ArrayList<>();
+        lock.lock();
+        try {
+            isShutdown = true;
             for (Worker worker : workers) {
                 worker.shutdown();
             }
+            remaining.addAll(taskQueue);
+            remaining.addAll(deadlineQueue);
+            taskQueue.clear();
+            deadlineQueue.clear();
+            queueChanged();
+            notEmpty.signalAll(); // 唤醒空闲 worker 退出
+            notFull.signalAll();  // 唤醒阻塞的提交者, 抛出 RejectedExecutionException
+        } finally {
+            lock.unlock();
+        }
+        for (Task task : remaining) cancel(task.runnable); // 不持有锁, Future 的回调可能很慢
+    }
+
+    // 运行时调整 ==========================================================================
+
+    /**
+     * 调大时如果队列中有任务, 立即创建 worker; 调小时多出来的 worker 在空闲 keepAlive 之后退出
+     */
+    public void setCorePoolSize(int corePoolSize) {
+        lock.lock();
+        try {
+            if (corePoolSize < MIN_WORKER_NUMBERS || corePoolSize > maximumPoolSize) throw new IllegalArgumentException();
+            this.corePoolSize = corePoolSize;
+            int n = queued();
+            while (n-- > 0 && tryAddWorker(corePoolSize)) {
+                // 每个排队的任务最多对应一个新 worker
+            }
+            notEmpty.signalAll(); // 空闲 worker 重新判断是否需要限时等待
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * 调小时多出来的 worker 执行完当前任务并且队列为空时立即退出
+     */
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        lock.lock();
+        try {
+            if (maximumPoolSize < corePoolSize) throw new IllegalArgumentException();
+            this.maximumPoolSize = maximumPoolSize;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setKeepAliveTime(long time, TimeUnit unit) {
+        if (time < 0) throw new IllegalArgumentException();
+        keepAliveNanos = unit.toNanos(time);
+    }
+
+    /**
+     * 队头任务的排队时间超过 threshold 并且没有空闲 worker 时扩容
+     */
+    public void setQueueDelayThreshold(long threshold, TimeUnit unit) {
+        if (threshold < 0) throw new IllegalArgumentException();
+        queueDelayThresholdNanos = unit.toNanos(threshold);
+    }
+
+    /**
+     * 启用 CoDel 队列管理, null 表示关闭
+     */
+    public void setCoDel(CoDel codel) {
+        lock.lock();
+        try {
+            this.codel = codel;
+            codelIntervalEnd = 0L;
+            codelMinSojourn = Long.MAX_VALUE;
+            codelOverloaded = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 没有截止时间的任务在 EDF 比较中的截止时间: 入队时间 + implicitDeadline
+     */
+    public void setImplicitDeadline(long time, TimeUnit unit) {
+        if (time < 0) throw new IllegalArgumentException();
+        implicitDeadlineNanos = unit.toNanos(time);
+    }
+
+    /**
+     * 空闲 worker 在 await() 之前先释放锁自旋 time, 期间提交的任务不需要 signal() / unpark() 就能被取走, 降低交接延迟<br>
+     * 最多 maxSpinningWorkers 个 worker 同时自旋, 自旋消耗的 CPU 时间和命中率见 ThreadPoolMetrics; time 为 0 时关闭
+     */
+    public void setIdleSpin(long time, TimeUnit unit, int maxSpinningWorkers) {
+        if (time < 0 || maxSpinningWorkers < 0) throw new IllegalArgumentException();
+        this.maxSpinningWorkers = maxSpinningWorkers;
+        this.idleSpinNanos = unit.toNanos(time);
+    }
+
+    /**
+     * worker 一次加锁最多取出的任务数, 1 表示不批量取出
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) throw new IllegalArgumentException();
+        this.batchSize = batchSize;
+    }
+
+    // ==================================================================================
+
+    /**
+     * 当前的 worker 数
+     */
     public int getWorkerNum() {
-        return workerNum;
+        lock.lock();
+        try {
+            return workers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleWorkerNum() {
+        lock.lock();
+        try {
+            return idleWorkers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPeakWorkerNum() {
+        lock.lock();
+        try {
+            return peakWorkers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SaturationPolicy getSaturationPolicy() {
+        return policy;
+    }
+
+    /**
+     * 执行指标, 读取不需要任务锁
+     */
+    public ThreadPoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
     }
 }
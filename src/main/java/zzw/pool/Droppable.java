@@ -0,0 +1,21 @@
+package zzw.pool;
+
+import java.util.concurrent.Future;
+
+/**
+ * <p>可以感知被丢弃的任务: 线程池接受任务之后没有执行就丢弃它时(DISCARD_OLDEST、CoDel、过期、shutdown())调用 onDrop()
+ * <p>任务在 onDrop() 中释放自己持有的资源(许可、队列中的位置等), 等待它的调用者不会永远阻塞
+ * <p>每个任务最多 run() OR onDrop() 其中之一被调用一次; onDrop() 不持有线程池的锁, 可以在提交者、worker OR shutdown() 的线程中调用
+ */
+public interface Droppable extends Runnable {
+
+    void onDrop();
+
+    /**
+     * 线程池丢弃 task 时调用: Droppable 调用 onDrop(), Future 被取消, 其它任务直接丢弃
+     */
+    static void drop(Runnable task) {
+        if (task instanceof Droppable) ((Droppable) task).onDrop();
+        else if (task instanceof Future) ((Future<?>) task).cancel(false);
+    }
+}
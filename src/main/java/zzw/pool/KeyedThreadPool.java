@@ -0,0 +1,304 @@
+package zzw.pool;
+
+import aqs.lock.Lock;
+import aqs.lock.ReentrantLock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>按 key 串行、不同 key 并行的线程池, 所有 key 共享 delegate 的 worker
+ * <p>execute(key, task): 同一个 key 的任务按提交顺序依次执行, 不会同时执行; 不同 key 的任务在 delegate 中并行执行
+ * <p>每个有待执行任务的 key 对应一个 KeyQueue, 在第一个任务提交时创建并作为一个任务提交给 delegate, 队列被取空时删除, 空闲的 key 不占用内存
+ * <p>KeyQueue 每次加锁最多取出 batchSize 个任务连续执行, 热点 key 的数据留在同一个 worker 的缓存中;
+ * 一批执行完后如果还有任务, 重新提交给 delegate 排到队尾, 不会饿死其它 key; delegate 拒绝 OR 在调用者线程执行时在当前线程循环执行, 不递归
+ * <p>delegate 接受 KeyQueue 后又丢弃它时(DISCARD_OLDEST、CoDel、shutdown()), KeyQueue 作为 Droppable 被通知: 从 map 中删除, 剩余任务按 Droppable.drop() 通知
+ * <p>key 按 hashCode 分到 STRIPES 个分段, 每个分段一把锁和一个 HashMap, 不同分段的 key 互不竞争
+ */
+public class KeyedThreadPool implements ThreadPool {
+
+    private static final int STRIPES            = 16; // 2 的幂
+    private static final int DEFAULT_BATCH_SIZE = 16;
+
+    private static final class Stripe {
+        final Lock                  lock   = new ReentrantLock();
+        final Map<Object, KeyQueue> queues = new HashMap<>();
+    }
+
+    /**
+     * 一个 key 的待执行任务, 在 map 中 <=> 已经提交给 delegate OR 正在执行
+     */
+    private final class KeyQueue implements Droppable {
+        final Object               key;
+        final Stripe               stripe;
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>(); // 持有 stripe.lock 才能访问
+        Runnable[]                 batch;                      // 同一时刻只有一个线程执行 drain()
+
+        KeyQueue(Object key, Stripe stripe) {
+            this.key = key;
+            this.stripe = stripe;
+        }
+
+        @Override
+        public void run() {
+            drain();
+        }
+
+        /**
+         * delegate 接受后又丢弃了这个 KeyQueue(DISCARD_OLDEST、CoDel、shutdown() 等), 不会再有线程执行它
+         */
+        @Override
+        public void onDrop() {
+            dropAll();
+        }
+
+        /**
+         * 循环执行, 直到队列为空 OR 剩余任务已经重新提交给 delegate 由其它线程执行<br>
+         * delegate 拒绝 OR 在当前线程执行(CALLER_RUNS)重新提交的任务时, 在当前循环中继续执行下一批, 不会递归调用, 栈深度不随任务数增长
+         */
+        private void drain() {
+            if (batch == null) batch = new Runnable[batchSize];
+            boolean exited = false;
+            try {
+                for (; ; ) {
+                    int n = 0;
+                    stripe.lock.lock();
+                    try {
+                        while (n < batchSize && !tasks.isEmpty()) batch[n++] = tasks.poll();
+                    } finally {
+                        stripe.lock.unlock();
+                    }
+                    pending.addAndGet(-n);
+
+                    for (int i = 0; i < n; i++) {
+                        Runnable task = batch[i];
+                        batch[i] = null;
+                        try {
+                            task.run();
+                        } catch (Throwable e) {
+                            // 不吞掉异常, 同一个 key 的后续任务继续执行
+                            Thread t = Thread.currentThread();
+                            t.getUncaughtExceptionHandler().uncaughtException(t, e);
+                        }
+                    }
+
+                    stripe.lock.lock();
+                    try {
+                        if (tasks.isEmpty()) {
+                            stripe.queues.remove(key);
+                            exited = true;
+                            return;
+                        }
+                    } finally {
+                        stripe.lock.unlock();
+                    }
+
+                    // 还有任务, 排到 delegate 队尾, 不饿死其它 key
+                    Resume resume = new Resume();
+                    try {
+                        delegate.execute(resume);
+                    } catch (RejectedExecutionException e) {
+                        continue; // delegate 已满, 在当前线程继续执行下一批
+                    } finally {
+                        resume.submitting = false;
+                    }
+                    if (!resume.ranInline) {
+                        exited = true;
+                        return; // 已经在 delegate 中排队, 由执行它的线程继续
+                    }
+                }
+            } finally {
+                if (!exited) recover();
+            }
+        }
+
+        /**
+         * 有异常从 drain() 中抛出(例如 UncaughtExceptionHandler 抛出异常): 这一批中没有执行的任务放回队头, 然后重新提交, 无法提交时 dropAll()
+         */
+        private void recover() {
+            stripe.lock.lock();
+            try {
+                int restored = 0;
+                for (int i = batch.length - 1; i >= 0; i--) {
+                    if (batch[i] == null) continue;
+                    tasks.addFirst(batch[i]);
+                    batch[i] = null;
+                    restored++;
+                }
+                pending.addAndGet(restored);
+                if (tasks.isEmpty()) {
+                    stripe.queues.remove(key);
+                    return;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+
+            try {
+                delegate.execute(this);
+                return;
+            } catch (Throwable ignore) {
+            }
+            dropAll();
+        }
+
+        /**
+         * 没有线程会再执行这个 KeyQueue: 从 map 中删除, 剩余任务不再执行, 按 Droppable.drop() 通知它们;
+         * 之后提交的任务创建新的 KeyQueue, key 不会永远卡住
+         */
+        private void dropAll() {
+            List<Runnable> dropped;
+            stripe.lock.lock();
+            try {
+                dropped = new ArrayList<>(tasks);
+                tasks.clear();
+                stripe.queues.remove(key, this);
+            } finally {
+                stripe.lock.unlock();
+            }
+            pending.addAndGet(-dropped.size());
+            for (Runnable task : dropped) Droppable.drop(task);
+        }
+
+        /**
+         * 重新提交给 delegate 的任务, 每次重新提交创建一个<br>
+         * delegate 在提交线程中直接执行它时(CALLER_RUNS)只做标记, 由 drain() 的循环继续执行, 避免递归
+         */
+        private final class Resume implements Droppable {
+            final Thread submitter  = Thread.currentThread();
+            boolean      submitting = true; // 只被 submitter 访问
+            boolean      ranInline;
+
+            @Override
+            public void run() {
+                if (Thread.currentThread() == submitter && submitting) {
+                    ranInline = true;
+                    return;
+                }
+                drain();
+            }
+
+            @Override
+            public void onDrop() {
+                dropAll();
+            }
+        }
+    }
+
+    // =================================================================================================================
+
+    private final ThreadPool    delegate;
+    private final int           batchSize;
+    private final Stripe[]      stripes = new Stripe[STRIPES];
+    private final AtomicInteger pending = new AtomicInteger(); // 所有 KeyQueue 中的任务数
+    private volatile boolean    isShutdown;
+
+    public KeyedThreadPool(ThreadPool delegate) {
+        this(delegate, DEFAULT_BATCH_SIZE);
+    }
+
+    public KeyedThreadPool(ThreadPool delegate, int batchSize) {
+        if (delegate == null) throw new NullPointerException();
+        if (batchSize <= 0) throw new IllegalArgumentException();
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    private Stripe stripe(Object key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 同一个 key 的任务按提交顺序串行执行<br>
+     * 只有 key 的第一个任务需要提交给 delegate, delegate 拒绝时抛出 RejectedExecutionException, 这个任务不会执行
+     */
+    public void execute(Object key, Runnable task) {
+        if (key == null || task == null) throw new NullPointerException();
+        if (isShutdown) throw new RejectedExecutionException();
+
+        Stripe   stripe  = stripe(key);
+        KeyQueue created = null;
+        stripe.lock.lock();
+        try {
+            KeyQueue queue = stripe.queues.get(key);
+            if (queue == null) {
+                queue = created = new KeyQueue(key, stripe);
+                stripe.queues.put(key, queue);
+            }
+            queue.tasks.add(task);
+        } finally {
+            stripe.lock.unlock();
+        }
+        pending.incrementAndGet();
+        if (created == null) return; // 已经有 KeyQueue 在执行, 会按顺序执行这个任务
+
+        try {
+            delegate.execute(created);
+        } catch (RejectedExecutionException e) {
+            boolean drain;
+            stripe.lock.lock();
+            try {
+                created.tasks.removeLastOccurrence(task);
+                drain = !created.tasks.isEmpty();
+                if (!drain) stripe.queues.remove(key);
+            } finally {
+                stripe.lock.unlock();
+            }
+            pending.decrementAndGet();
+            // 其它线程已经向这个 KeyQueue 追加了任务, 它们已经被接受, 只能在当前线程执行
+            if (drain) created.run();
+            throw e;
+        }
+    }
+
+    /**
+     * 没有 key 的任务直接交给 delegate, 不保证顺序
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (isShutdown) throw new RejectedExecutionException();
+        delegate.execute(task);
+    }
+
+    /**
+     * 近似值: 各个 key 中等待的任务 + delegate 中等待的任务
+     */
+    @Override
+    public int getWaitingTaskCount() {
+        return pending.get() + delegate.getWaitingTaskCount();
+    }
+
+    /**
+     * 不再接受新任务, 然后关闭 delegate
+     */
+    @Override
+    public void shutdown() {
+        isShutdown = true;
+        delegate.shutdown();
+    }
+
+    /**
+     * 有待执行任务的 key 数量
+     */
+    public int getKeyCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                count += stripe.queues.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,79 @@
+package zzw.pool;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>无锁的延迟直方图, 单位为纳秒
+ * <p>按 2 的幂分桶: 第 i 个桶记录 [2^i, 2^(i+1)) 的值, 第 0 个桶还包括 0, 分位数的误差不超过 2 倍
+ * <p>每个桶都是 LongAdder, 多个 worker 同时记录时写入不同的 cell, 读取时求和, 读写都不加锁
+ * <p>读取不是原子快照, 并发记录时各个统计值之间可能有微小的不一致
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[]     buckets = new LongAdder[BUCKETS];
+    private final LongAdder       count   = new LongAdder();
+    private final LongAdder       sum     = new LongAdder();
+    private final LongAccumulator max     = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 0L ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0L) nanos = 0L; // nanoTime() 在不同核上可能有微小偏差
+        buckets[bucket(nanos)].increment();
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    // =================================================================================================================
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return sum.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * 分位数的近似值, 返回所在桶的上界, 例如 getPercentileNanos(0.99)
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0.0 || percentile > 1.0) throw new IllegalArgumentException();
+        long[] counts = new long[BUCKETS];
+        long   total  = 0;
+        for (int i = 0; i < BUCKETS; i++) total += counts[i] = buckets[i].sum();
+        if (total == 0) return 0L;
+
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1L)) return i == 63 ? Long.MAX_VALUE : Math.min((1L << (i + 1)) - 1, max.get());
+        }
+        return max.get();
+    }
+
+    public String toString() {
+        return String.format("count=%d mean=%.0fns p50=%dns p99=%dns max=%dns",
+                getCount(), getMeanNanos(), getPercentileNanos(0.5), getPercentileNanos(0.99), getMaxNanos());
+    }
+}
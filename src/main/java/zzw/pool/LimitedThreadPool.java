@@ -0,0 +1,90 @@
+package zzw.pool;
+
+import zzw.limit.AdaptiveLimiter;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>用 AdaptiveLimiter 限制提交到 delegate 的任务数
+ * <p>execute() 获取不到许可时抛出 RejectedExecutionException, 与 DefaultThreadPool 队列已满时的行为一致
+ * <p>rtt 从提交开始计算, 包含排队时间和执行时间, 所以线程池排队变长时 limit 会收缩
+ * <p>提交给 delegate 的是 Droppable: delegate 接受任务后又丢弃它(例如 shutdown() 时还在排队)时调用 onDrop(), 许可随之归还, 不会泄漏
+ */
+public class LimitedThreadPool implements ThreadPool {
+
+    /**
+     * 提交给 delegate 的任务, 持有一个许可, 执行完 OR 被 delegate 丢弃(onDrop())时释放且只释放一次
+     */
+    private final class Permit implements Droppable {
+
+        private static final int NEW     = 0;
+        private static final int RUNNING = 1;
+        private static final int DROPPED = 2;
+
+        private final Runnable      task;
+        private final long          submitTime = System.nanoTime();
+        private final AtomicInteger state      = new AtomicInteger(NEW);
+
+        Permit(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(NEW, RUNNING)) return; // 已经被丢弃, 许可已经归还
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                limiter.onIgnore();
+                throw e;
+            }
+            limiter.onSuccess(System.nanoTime() - submitTime);
+        }
+
+        @Override
+        public void onDrop() {
+            if (!state.compareAndSet(NEW, DROPPED)) return;
+            limiter.onIgnore();  // 没有执行, rtt 没有参考价值
+            Droppable.drop(task); // submit() 的 Future 被取消, 调用者不会永远阻塞
+        }
+    }
+
+    // =================================================================================================================
+
+    private final ThreadPool      delegate;
+    private final AdaptiveLimiter limiter;
+
+    public LimitedThreadPool(ThreadPool delegate, AdaptiveLimiter limiter) {
+        if (delegate == null || limiter == null) throw new NullPointerException();
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) throw new NullPointerException();
+        if (!limiter.tryAcquire()) throw new RejectedExecutionException();
+
+        try {
+            delegate.execute(new Permit(task));
+        } catch (RejectedExecutionException e) {
+            limiter.onDropped(); // delegate 已满, 收缩 limit
+            throw e;
+        }
+    }
+
+    @Override
+    public int getWaitingTaskCount() {
+        return delegate.getWaitingTaskCount();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+}
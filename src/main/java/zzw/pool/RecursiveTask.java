@@ -0,0 +1,100 @@
+package zzw.pool;
+
+/**
+ * <p>分治任务, 在 WorkStealingThreadPool 中执行, 用法与 java.util.concurrent.RecursiveTask 相同
+ * <p>fork(): 把子任务放入当前 worker 的双端队列, 空闲的 worker 可以窃取它
+ * <p>join(): 不阻塞 worker, 等待期间当前 worker 继续执行自己双端队列中的任务 OR 窃取其它 worker 的任务;
+ * 刚 fork() 的子任务在双端队列的 bottom 端, 通常会被 join() 的线程自己弹出执行
+ * <p>每个任务只能执行一次: 双端队列保证 fork() 的任务只会被弹出 OR 窃取一次, 不要对已经 fork() 的任务调用 invoke()
+ * <p>compute() 抛出的异常在 join() / invoke() 时重新抛出
+ */
+public abstract class RecursiveTask<V> implements Runnable {
+
+    private static final int NEW         = 0;
+    private static final int NORMAL      = 1;
+    private static final int EXCEPTIONAL = 2;
+
+    private volatile int status;
+    private V            result;    // 由 status 的 volatile 写保证可见性
+    private Throwable    exception;
+
+    /**
+     * 任务的计算逻辑, 可以 fork() 子任务并 join() 它们的结果
+     */
+    protected abstract V compute();
+
+    /**
+     * 由执行任务的线程调用, 不抛出异常
+     */
+    @Override
+    public final void run() {
+        if (status != NEW) return;
+        try {
+            result = compute();
+            status = NORMAL;
+        } catch (Throwable e) {
+            exception = e;
+            status = EXCEPTIONAL;
+        }
+    }
+
+    // =================================================================================================================
+
+    /**
+     * 只能在 WorkStealingThreadPool 的 worker 中调用
+     */
+    public final RecursiveTask<V> fork() {
+        WorkStealingThreadPool.currentWorkerPool().execute(this);
+        return this;
+    }
+
+    /**
+     * 等待任务完成并返回结果, 只能在 WorkStealingThreadPool 的 worker 中调用
+     */
+    public final V join() {
+        if (status == NEW) WorkStealingThreadPool.helpJoin(this);
+        return report();
+    }
+
+    /**
+     * 在当前线程中执行并返回结果
+     */
+    public final V invoke() {
+        run();
+        return report();
+    }
+
+    /**
+     * fork() t2, 在当前线程执行 t1, 然后 join() t2
+     */
+    public static void invokeAll(RecursiveTask<?> t1, RecursiveTask<?> t2) {
+        t2.fork();
+        t1.invoke();
+        t2.join();
+    }
+
+    private V report() {
+        if (status == NORMAL) return result;
+        Throwable e = exception;
+        if (e instanceof RuntimeException) throw (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        throw new RuntimeException(e);
+    }
+
+    // =================================================================================================================
+
+    public final boolean isDone() {
+        return status != NEW;
+    }
+
+    public final boolean isCompletedExceptionally() {
+        return status == EXCEPTIONAL;
+    }
+
+    /**
+     * 完成前返回 null
+     */
+    public final V getRawResult() {
+        return status == NORMAL ? result : null;
+    }
+}
@@ -0,0 +1,67 @@
+package zzw.pool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>DefaultThreadPool 队列已满(OR 排队过久)时对提交者的处理策略, 在构造线程池时指定
+ * <p>ABORT: 抛出 RejectedExecutionException, 默认策略
+ * <p>CALLER_RUNS: 在提交者线程中直接执行任务, 提交者忙于执行任务时自然放慢提交速度
+ * <p>DISCARD_OLDEST: 丢弃队头等待最久的任务, 被丢弃的任务如果是 Future 则被取消, 等待它的线程不会永远阻塞
+ * <p>block(timeout): 阻塞提交者直到队列有空间, 超时后抛出 RejectedExecutionException
+ * <p>throttle(targetDelay, maxPause): 队头任务的排队时间超过 targetDelay 时, 提交者暂停 (排队时间 - targetDelay), 最多 maxPause;
+ * 队列已满时与 block(maxPause) 相同
+ * <p>所有的拒绝、阻塞、暂停、调用者执行、丢弃都计入 ThreadPoolMetrics
+ */
+public final class SaturationPolicy {
+
+    enum Kind {
+        ABORT, CALLER_RUNS, DISCARD_OLDEST, BLOCK, THROTTLE
+    }
+
+    public static final SaturationPolicy ABORT          = new SaturationPolicy(Kind.ABORT, 0L, 0L);
+    public static final SaturationPolicy CALLER_RUNS    = new SaturationPolicy(Kind.CALLER_RUNS, 0L, 0L);
+    public static final SaturationPolicy DISCARD_OLDEST = new SaturationPolicy(Kind.DISCARD_OLDEST, 0L, 0L);
+
+    public static SaturationPolicy block(long timeout, TimeUnit unit) {
+        if (timeout < 0) throw new IllegalArgumentException();
+        return new SaturationPolicy(Kind.BLOCK, unit.toNanos(timeout), 0L);
+    }
+
+    public static SaturationPolicy throttle(long targetDelay, long maxPause, TimeUnit unit) {
+        if (targetDelay < 0 || maxPause < 0) throw new IllegalArgumentException();
+        return new SaturationPolicy(Kind.THROTTLE, unit.toNanos(maxPause), unit.toNanos(targetDelay));
+    }
+
+    // =================================================================================================================
+
+    final Kind kind;
+    final long timeoutNanos;     // BLOCK: 最长阻塞时间; THROTTLE: 最长暂停时间
+    final long targetDelayNanos; // THROTTLE: 允许的队头排队时间
+
+    private SaturationPolicy(Kind kind, long timeoutNanos, long targetDelayNanos) {
+        this.kind = kind;
+        this.timeoutNanos = timeoutNanos;
+        this.targetDelayNanos = targetDelayNanos;
+    }
+
+    /**
+     * THROTTLE: 队头任务已经排队 delayNanos 时提交者应该暂停的时间
+     */
+    long pauseNanos(long delayNanos) {
+        long excess = delayNanos - targetDelayNanos;
+        return excess <= 0 ? 0L : Math.min(excess, timeoutNanos);
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case BLOCK:
+                return "BLOCK(" + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms)";
+            case THROTTLE:
+                return "THROTTLE(" + TimeUnit.NANOSECONDS.toMillis(targetDelayNanos) + "ms, "
+                        + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms)";
+            default:
+                return kind.name();
+        }
+    }
+}
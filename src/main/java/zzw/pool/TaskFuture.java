@@ -0,0 +1,249 @@
+package zzw.pool;
+
+import aqs.AbstractQueuedSynchronizer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>基于项目 AQS 的轻量 Future, 用于 ThreadPool.submit()
+ * <p>AQS 的 state 就是任务状态, get() 是 acquireShared(), 任务完成时 releaseShared() 唤醒所有等待者
+ * <p>状态只有一次转换: NEW -> COMPLETING -> NORMAL / EXCEPTIONAL / CANCELLED, 抢到 COMPLETING 的线程写入结果
+ * <p>whenComplete() 注册的回调保存在无锁栈中, 由完成任务的线程直接执行, 注册时已经完成则由注册线程立即执行, 不需要额外的线程
+ */
+public class TaskFuture<V> implements Future<V>, Runnable {
+
+    private static final int NEW         = 0;
+    private static final int COMPLETING  = 1; // 结果正在写入
+    private static final int NORMAL      = 2;
+    private static final int EXCEPTIONAL = 3;
+    private static final int CANCELLED   = 4;
+
+    private static final class Sync extends AbstractQueuedSynchronizer {
+
+        int getStatus() {
+            return getState();
+        }
+
+        boolean tryStart() {
+            return compareAndSetState(NEW, COMPLETING);
+        }
+
+        /**
+         * 只有 tryStart() 成功的线程才能调用
+         */
+        void finish(int status) {
+            setState(status);
+            releaseShared(0);
+        }
+
+        /**
+         * 完成之前都会被阻塞
+         */
+        protected int tryAcquireShared(int acquires) {
+            return getState() > COMPLETING ? 1 : -1;
+        }
+
+        protected boolean tryReleaseShared(int releases) {
+            return true;
+        }
+    }
+
+    /**
+     * 回调栈的节点
+     */
+    private static final class Completion {
+        final BiConsumer<Object, Throwable> action;
+        Completion                          next;
+
+        Completion(BiConsumer<Object, Throwable> action) {
+            this.action = action;
+        }
+    }
+
+    private static final Completion DONE = new Completion(null); // 回调栈已经被弹出, 之后注册的回调立即执行
+
+    // =================================================================================================================
+
+    @SuppressWarnings("rawtypes") // newUpdater() 只接受 Class<TaskFuture>, 不能用通配符类型
+    private static final AtomicReferenceFieldUpdater<TaskFuture, Completion> COMPLETIONS =
+            AtomicReferenceFieldUpdater.newUpdater(TaskFuture.class, Completion.class, "completions");
+
+    private final    Sync       sync = new Sync();
+    private volatile Completion completions; // 回调栈, 字段更新器代替 AtomicReference, 每个任务少分配一个对象
+
+    private Callable<V>     callable; // 执行完成后置为 null
+    private volatile Thread runner;   // 正在执行 callable 的线程, 用于 cancel(true)
+    private Object          outcome;  // 结果 OR 异常, 由 sync 的 state 保证可见性
+
+    public TaskFuture(Callable<V> callable) {
+        if (callable == null) throw new NullPointerException();
+        this.callable = callable;
+    }
+
+    public TaskFuture(Runnable runnable, V result) {
+        this(() -> {
+            runnable.run();
+            return result;
+        });
+    }
+
+    /**
+     * 没有任务的 Future, 只能通过 complete() / completeExceptionally() 完成
+     */
+    public TaskFuture() {
+        this.callable = null;
+    }
+
+    // =================================================================================================================
+
+    @Override
+    public void run() {
+        Callable<V> c = callable;
+        if (c == null || sync.getStatus() != NEW) return;
+
+        runner = Thread.currentThread();
+        try {
+            if (sync.getStatus() != NEW) return; // 设置 runner 之前已经被取消
+            V result;
+            try {
+                result = c.call();
+            } catch (Throwable e) {
+                completeExceptionally(e);
+                return;
+            }
+            complete(result);
+        } finally {
+            runner = null;
+            callable = null;
+
+            // cancel(true) 先中断再设置 CANCELLED, 等它设置完之后清除中断标记, 不影响 worker 执行下一个任务
+            int status;
+            while ((status = sync.getStatus()) == COMPLETING) Thread.yield();
+            if (status == CANCELLED) Thread.interrupted();
+        }
+    }
+
+    /**
+     * 以 value 完成, 已经完成时返回 false
+     */
+    public boolean complete(V value) {
+        return finish(value, NORMAL);
+    }
+
+    /**
+     * 以异常 e 完成, 已经完成时返回 false
+     */
+    public boolean completeExceptionally(Throwable e) {
+        if (e == null) throw new NullPointerException();
+        return finish(e, EXCEPTIONAL);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!sync.tryStart()) return false;
+        outcome = new CancellationException();
+        if (mayInterruptIfRunning) {
+            Thread t = runner;
+            if (t != null) t.interrupt();
+        }
+        sync.finish(CANCELLED);
+        fireCompletions();
+        return true;
+    }
+
+    private boolean finish(Object value, int status) {
+        if (!sync.tryStart()) return false;
+        outcome = value;
+        sync.finish(status);
+        fireCompletions();
+        return true;
+    }
+
+    // 回调 ============================================================================================================
+
+    /**
+     * 完成后以 (结果, null) OR (null, 异常) 调用 action, 取消时异常为 CancellationException<br>
+     * 已经完成时在当前线程立即调用, 否则在完成任务的线程中调用; action 抛出的异常被忽略, 不影响其它回调
+     */
+    @SuppressWarnings("unchecked")
+    public TaskFuture<V> whenComplete(BiConsumer<? super V, ? super Throwable> action) {
+        if (action == null) throw new NullPointerException();
+        Completion node = new Completion((BiConsumer<Object, Throwable>) action);
+        for (; ; ) {
+            Completion head = completions;
+            if (head == DONE) break;
+            node.next = head;
+            if (COMPLETIONS.compareAndSet(this, head, node)) return this;
+        }
+        runCompletion(node);
+        return this;
+    }
+
+    /**
+     * 弹出所有回调并按注册顺序执行
+     */
+    private void fireCompletions() {
+        Completion head     = COMPLETIONS.getAndSet(this, DONE);
+        Completion reversed = null;
+        while (head != null) {
+            Completion next = head.next;
+            head.next = reversed;
+            reversed = head;
+            head = next;
+        }
+        for (Completion c = reversed; c != null; c = c.next) runCompletion(c);
+    }
+
+    private void runCompletion(Completion c) {
+        int status = sync.getStatus();
+        try {
+            if (status == NORMAL) c.action.accept(outcome, null);
+            else c.action.accept(null, (Throwable) outcome);
+        } catch (Throwable ignore) {
+            // 回调的异常不能影响完成任务的线程
+        }
+    }
+
+    // =================================================================================================================
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        sync.acquireSharedInterruptibly(0);
+        return report();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!sync.tryAcquireSharedNanos(0, unit.toNanos(timeout))) throw new TimeoutException();
+        return report();
+    }
+
+    @SuppressWarnings("unchecked")
+    private V report() throws ExecutionException {
+        int status = sync.getStatus();
+        if (status == NORMAL) return (V) outcome;
+        if (status == CANCELLED) throw (CancellationException) outcome;
+        throw new ExecutionException((Throwable) outcome);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return sync.getStatus() == CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return sync.getStatus() > COMPLETING;
+    }
+
+    public boolean isCompletedExceptionally() {
+        return sync.getStatus() >= EXCEPTIONAL;
+    }
+}
@@ -1,9 +1,17 @@
 package zzw.pool;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public interface ThreadPool {
 
     /**
-     * 执行一个任务 task
+     * 执行一个任务 task<br>
+     * 实现类接受任务后如果没有执行就丢弃它, 必须通过 Droppable.drop(task) 通知, 让任务释放持有的资源
      */
     void execute(Runnable task);
 
@@ -16,4 +24,80 @@ public interface ThreadPool {
      * 关闭线程池
      */
     void shutdown();
+
+    // =================================================================================
+
+    /**
+     * 批量执行任务, 默认逐个 execute(), 实现类可以一次加锁放入所有任务
+     */
+    default void executeAll(Collection<? extends Runnable> tasks) {
+        for (Runnable task : tasks) execute(task);
+    }
+
+    /**
+     * 提交一个有返回值的任务, task 抛出的异常由 TaskFuture.get() 以 ExecutionException 抛出
+     */
+    default <T> TaskFuture<T> submit(Callable<T> task) {
+        TaskFuture<T> future = new TaskFuture<>(task);
+        execute(future);
+        return future;
+    }
+
+    default TaskFuture<?> submit(Runnable task) {
+        TaskFuture<Object> future = new TaskFuture<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    /**
+     * 通过 executeAll() 一次提交所有任务, 等待所有任务完成<br>
+     * 等待期间被中断时取消所有未完成的任务
+     */
+    default <T> List<TaskFuture<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        List<TaskFuture<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) futures.add(new TaskFuture<>(task));
+        executeAll(futures);
+
+        try {
+            for (TaskFuture<T> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException | RuntimeException ignore) {
+                    // 由调用者通过 future 查看
+                }
+            }
+        } catch (InterruptedException e) {
+            for (TaskFuture<T> future : futures) future.cancel(true);
+            throw e;
+        }
+        return futures;
+    }
+
+    /**
+     * 通过 executeAll() 一次提交所有任务, 返回第一个成功完成的结果, 然后取消其它任务<br>
+     * 所有任务都失败时抛出 ExecutionException, cause 为最后一个失败的异常<br>
+     * 通过 whenComplete() 回调汇总结果, 不需要额外的线程轮询
+     */
+    default <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        if (tasks.isEmpty()) throw new IllegalArgumentException();
+
+        final TaskFuture<T>       first     = new TaskFuture<>();
+        final AtomicInteger       remaining = new AtomicInteger(tasks.size());
+        final List<TaskFuture<T>> futures   = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            TaskFuture<T> future = new TaskFuture<>(task);
+            future.whenComplete((value, e) -> {
+                if (e == null) first.complete(value);
+                else if (remaining.decrementAndGet() == 0) first.completeExceptionally(e);
+            });
+            futures.add(future);
+        }
+
+        try {
+            executeAll(futures);
+            return first.get();
+        } finally {
+            for (TaskFuture<T> future : futures) future.cancel(true);
+        }
+    }
 }
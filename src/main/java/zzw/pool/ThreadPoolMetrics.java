@@ -0,0 +1,211 @@
+package zzw.pool;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>DefaultThreadPool 的执行指标, 所有读取都不加锁, 可以被监控和自动扩缩容频繁轮询
+ * <p>等待时间: 从入队到开始执行; 运行时间: 从开始执行到执行结束
+ * <p>忙碌比例 = 运行时间总和 / (运行时间总和 + 空闲等待时间总和), 空闲等待时间在 worker 醒来后才计入
+ * <p>失败只统计直接抛出异常的任务, submit() 的任务异常被 TaskFuture 捕获, 计为完成
+ * <p>队列深度在持有任务锁时写入 volatile 字段, 读取时不需要任务锁
+ */
+public class ThreadPoolMetrics {
+
+    private final LatencyHistogram waitTime  = new LatencyHistogram();
+    private final LatencyHistogram runTime   = new LatencyHistogram();
+    private final LongAdder        idleNanos = new LongAdder();
+    private final LongAdder        completed = new LongAdder();
+    private final LongAdder        failed    = new LongAdder();
+    private final LongAdder        rejected  = new LongAdder();
+
+    // SaturationPolicy
+    private final LongAdder callerRuns    = new LongAdder();
+    private final LongAdder discarded     = new LongAdder();
+    private final LongAdder blocked       = new LongAdder();
+    private final LongAdder throttled     = new LongAdder();
+    private final LongAdder throttleNanos = new LongAdder();
+
+    // CoDel
+    private final LongAdder shed = new LongAdder();
+
+    // EDF
+    private final LongAdder expired = new LongAdder();
+
+    // 空闲自旋
+    private final LongAdder spinNanos  = new LongAdder();
+    private final LongAdder spinHits   = new LongAdder();
+    private final LongAdder spinMisses = new LongAdder();
+
+    // 持有任务锁时写入
+    private volatile int queueDepth;
+    private volatile int peakQueueDepth;
+
+    // 由 DefaultThreadPool 调用 ========================================================================================
+
+    void recordWait(long nanos) {
+        waitTime.record(nanos);
+    }
+
+    void recordRun(long nanos, boolean success) {
+        runTime.record(nanos);
+        if (success) completed.increment();
+        else failed.increment();
+    }
+
+    void recordIdle(long nanos) {
+        idleNanos.add(nanos);
+    }
+
+    void recordRejected(int n) {
+        rejected.add(n);
+    }
+
+    void recordCallerRuns(int n) {
+        callerRuns.add(n);
+    }
+
+    void recordDiscarded() {
+        discarded.increment();
+    }
+
+    void recordBlocked() {
+        blocked.increment();
+    }
+
+    void recordThrottled(long nanos) {
+        throttled.increment();
+        throttleNanos.add(nanos);
+    }
+
+    void recordShed(int n) {
+        shed.add(n);
+    }
+
+    void recordExpired() {
+        expired.increment();
+    }
+
+    void recordSpin(long nanos, boolean hit) {
+        spinNanos.add(nanos);
+        if (hit) spinHits.increment();
+        else spinMisses.increment();
+    }
+
+    /**
+     * 持有任务锁才能调用
+     */
+    void updateQueueDepth(int depth) {
+        queueDepth = depth;
+        if (depth > peakQueueDepth) peakQueueDepth = depth;
+    }
+
+    // =================================================================================================================
+
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    public LatencyHistogram getRunTime() {
+        return runTime;
+    }
+
+    public double getBusyRatio() {
+        long busy = runTime.getTotalNanos();
+        long idle = idleNanos.sum();
+        return busy + idle == 0 ? 0.0 : (double) busy / (busy + idle);
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * CALLER_RUNS 策略在提交者线程中执行的任务数
+     */
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    /**
+     * DISCARD_OLDEST 策略丢弃的任务数
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    /**
+     * BLOCK / THROTTLE 策略因为队列已满而阻塞的提交次数
+     */
+    public long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    /**
+     * THROTTLE 策略因为排队过久而暂停的提交次数
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    public long getThrottleNanos() {
+        return throttleNanos.sum();
+    }
+
+    /**
+     * CoDel 丢弃的任务数
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * 过了截止时间而没有执行的任务数
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * 空闲 worker 自旋的总时间, 近似于为降低交接延迟额外消耗的 CPU 时间
+     */
+    public long getSpinNanos() {
+        return spinNanos.sum();
+    }
+
+    /**
+     * 自旋期间等到任务的次数, 每次命中省去一次 signal() / unpark()
+     */
+    public long getSpinHits() {
+        return spinHits.sum();
+    }
+
+    public long getSpinMisses() {
+        return spinMisses.sum();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getPeakQueueDepth() {
+        return peakQueueDepth;
+    }
+
+    public String toString() {
+        return String.format("completed=%d failed=%d rejected=%d queue=%d peakQueue=%d busy=%.2f%n"
+                        + "  callerRuns=%d discarded=%d blocked=%d throttled=%d(%dms) shed=%d expired=%d%n"
+                        + "  spin=%dms hits=%d misses=%d%n  wait: %s%n  run:  %s",
+                getCompletedCount(), getFailedCount(), getRejectedCount(), getQueueDepth(), getPeakQueueDepth(), getBusyRatio(),
+                getCallerRunsCount(), getDiscardedCount(), getBlockedCount(), getThrottledCount(), getThrottleNanos() / 1_000_000, getShedCount(), getExpiredCount(),
+                getSpinNanos() / 1_000_000, getSpinHits(), getSpinMisses(),
+                waitTime, runTime);
+    }
+}
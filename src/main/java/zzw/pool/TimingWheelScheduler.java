@@ -0,0 +1,411 @@
+package zzw.pool;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>分层时间轮(hierarchical hashed timing wheel)实现的延迟 / 周期任务调度器, 用于大量超时任务的场景
+ * <p>时间被划分为 tick, 第 i 层时间轮有 wheelSize 个槽, 每个槽覆盖 wheelSize^i 个 tick; 到期时间距离现在 delta 个 tick 的任务放在满足 delta < wheelSize^(i+1) 的最低层
+ * <p>第 0 层的指针每个 tick 前进一格, 槽中的任务全部到期; 第 i 层的指针每 wheelSize^i 个 tick 前进一格, 槽中的任务按剩余时间重新放入更低的层(cascade)
+ * <p>schedule() 和 cancel() 都是 O(1) 且不加锁: 提交者把任务压入无锁栈, cancel() 只 CAS 修改状态并压入另一个无锁栈,
+ * 由唯一的 ticker 线程在每个 tick 开始时一次取走两个栈, 插入 OR 摘除时间轮中的双向链表节点; 时间轮本身只被 ticker 线程访问
+ * <p>到期的任务交给 executor 执行, executor 为 null OR 拒绝时在 ticker 线程中执行; 任务最多延迟一个 tick 执行
+ * <p>executor 接受之后又丢弃(DISCARD_OLDEST、CoDel、shutdown())时通过 Droppable 得到通知: 一次性任务被取消, 周期任务跳过这一次
+ * <p>周期任务在一次执行结束后重新放入时间轮, 同一个周期任务不会并发执行; 抛出异常后不再执行, 与 ScheduledThreadPoolExecutor 相同
+ */
+public class TimingWheelScheduler {
+
+    private static final int WAITING   = 0; // 在时间轮中 OR 在等待插入的栈中
+    private static final int EXPIRED   = 1; // 已经交给 executor, 周期任务执行结束后回到 WAITING
+    private static final int CANCELLED = 2;
+
+    /**
+     * schedule() 返回的句柄
+     */
+    public static final class Timeout {
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimingWheelScheduler scheduler;
+        private final Runnable             task;
+        private final long                 period; // 0: 一次性; > 0: fixed-rate; < 0: fixed-delay
+
+        private volatile int  state;
+        private volatile long deadline; // System.nanoTime()
+
+        // ticker 线程独占
+        private Bucket  bucket;
+        private Timeout prev, next;
+        private long    deadlineTick;
+
+        // 无锁栈
+        private Timeout nextPending;
+        private Timeout nextCancelled;
+
+        private Timeout(TimingWheelScheduler scheduler, Runnable task, long deadline, long period) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        /**
+         * 到期前 OR 周期任务的任意时刻都可以取消, 已经开始执行的一次性任务不能取消
+         */
+        public boolean cancel() {
+            for (; ; ) {
+                int s = state;
+                if (s == CANCELLED || (s == EXPIRED && period == 0L)) return false;
+                if (STATE.compareAndSet(this, s, CANCELLED)) {
+                    scheduler.pendingCount.decrementAndGet();
+                    if (s == WAITING) scheduler.pushCancelled(this); // EXPIRED 的周期任务不在时间轮中, 执行结束后不再放回
+                    return true;
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * 一次性任务已经交给 executor
+         */
+        public boolean isExpired() {
+            return state == EXPIRED && period == 0L;
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        private void fire() {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                if (period != 0L && STATE.compareAndSet(this, EXPIRED, CANCELLED)) scheduler.pendingCount.decrementAndGet();
+                Thread t = Thread.currentThread();
+                t.getUncaughtExceptionHandler().uncaughtException(t, e);
+                return;
+            }
+            if (period != 0L) reschedule();
+        }
+
+        /**
+         * executor 接受之后丢弃了这一次执行: 一次性任务变为 CANCELLED 并通知 task, 周期任务按周期放回时间轮
+         */
+        private void drop() {
+            scheduler.droppedCount.increment();
+            if (period != 0L) reschedule();
+            else if (STATE.compareAndSet(this, EXPIRED, CANCELLED)) Droppable.drop(task);
+        }
+
+        private void reschedule() {
+            deadline = period > 0L ? deadline + period : System.nanoTime() - period;
+            if (STATE.compareAndSet(this, EXPIRED, WAITING)) scheduler.pushPending(this);
+        }
+    }
+
+    /**
+     * 交给 executor 的 Runnable, 只为到期的任务创建, 大多数超时任务在到期前就被取消
+     */
+    private static final class Dispatch implements Droppable {
+
+        private final Timeout timeout;
+
+        Dispatch(Timeout timeout) {
+            this.timeout = timeout;
+        }
+
+        @Override
+        public void run() {
+            timeout.fire();
+        }
+
+        @Override
+        public void onDrop() {
+            timeout.drop();
+        }
+    }
+
+    /**
+     * 时间轮的一个槽, 双向链表, 只被 ticker 线程访问
+     */
+    private static final class Bucket {
+        Timeout head, tail;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            t.prev = tail;
+            t.next = null;
+            if (tail == null) head = t;
+            else tail.next = t;
+            tail = t;
+        }
+
+        void remove(Timeout t) {
+            if (t.prev == null) head = t.next;
+            else t.prev.next = t.next;
+            if (t.next == null) tail = t.prev;
+            else t.next.prev = t.prev;
+            t.bucket = null;
+            t.prev = t.next = null;
+        }
+
+        /**
+         * 取走整个链表
+         */
+        Timeout clear() {
+            Timeout h = head;
+            head = tail = null;
+            return h;
+        }
+    }
+
+    // =================================================================================================================
+
+    private static final long DEFAULT_TICK_MILLIS = 1;
+    private static final int  DEFAULT_WHEEL_SIZE  = 256;
+    private static final int  DEFAULT_LEVELS      = 4; // 1 ms * 256^4 ≈ 49 天
+    private static final long MAX_DELAY_NANOS     = Long.MAX_VALUE >> 1; // 约 146 年, deadline - startTime 不会溢出
+
+    private static final AtomicReferenceFieldUpdater<TimingWheelScheduler, Timeout> PENDING =
+            AtomicReferenceFieldUpdater.newUpdater(TimingWheelScheduler.class, Timeout.class, "pending");
+    private static final AtomicReferenceFieldUpdater<TimingWheelScheduler, Timeout> CANCELLED_STACK =
+            AtomicReferenceFieldUpdater.newUpdater(TimingWheelScheduler.class, Timeout.class, "cancelled");
+
+    private static final AtomicLong threadNum = new AtomicLong(); // 所有实例共享, ticker 线程名不重复
+
+    private final ThreadPool executor;
+    private final long       tickNanos;
+    private final int        bits;   // log2(wheelSize)
+    private final int        mask;
+    private final Bucket[][] wheels; // [level][slot]
+    private final long       startTime;
+    private final Thread     ticker;
+
+    private volatile Timeout pending;   // 等待插入的任务
+    private volatile Timeout cancelled; // 等待摘除的任务
+    private volatile boolean running = true;
+
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final LongAdder  expiredCount = new LongAdder();
+    private final LongAdder  droppedCount = new LongAdder();
+
+    private long currentTick; // ticker 线程独占
+
+    public TimingWheelScheduler(ThreadPool executor) {
+        this(executor, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE, DEFAULT_LEVELS);
+    }
+
+    /**
+     * tick: 时间精度; wheelSize: 每层的槽数, 向上取整为 2 的幂; levels: 层数, 超出 tick * wheelSize^levels 的任务在最高层反复 cascade
+     */
+    public TimingWheelScheduler(ThreadPool executor, long tick, TimeUnit unit, int wheelSize, int levels) {
+        if (tick <= 0 || wheelSize < 2 || wheelSize > (1 << 16) || levels < 1) throw new IllegalArgumentException();
+        int size = 2;
+        while (size < wheelSize) size <<= 1;
+        if ((long) Integer.numberOfTrailingZeros(size) * levels >= 63) throw new IllegalArgumentException();
+
+        this.executor = executor;
+        this.tickNanos = unit.toNanos(tick);
+        this.bits = Integer.numberOfTrailingZeros(size);
+        this.mask = size - 1;
+        this.wheels = new Bucket[levels][size];
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        }
+        this.startTime = System.nanoTime();
+        this.ticker = new Thread(this::runTicker, "TimingWheel-Ticker-" + threadNum.incrementAndGet());
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    // =================================================================================================================
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, delay, 0L, unit);
+    }
+
+    /**
+     * 第 n 次执行的计划时间为 initialDelay + n * period, 上一次执行超时时下一次立即执行, 不会并发执行
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) throw new IllegalArgumentException();
+        return schedule(task, initialDelay, capNanos(unit.toNanos(period)), unit);
+    }
+
+    /**
+     * 上一次执行结束 delay 之后执行下一次
+     */
+    public Timeout scheduleWithFixedDelay(Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) throw new IllegalArgumentException();
+        return schedule(task, initialDelay, -capNanos(unit.toNanos(delay)), unit);
+    }
+
+    private Timeout schedule(Runnable task, long delay, long periodNanos, TimeUnit unit) {
+        if (task == null) throw new NullPointerException();
+        if (!running) throw new RejectedExecutionException();
+        Timeout t = new Timeout(this, task, System.nanoTime() + capNanos(unit.toNanos(Math.max(delay, 0L))), periodNanos);
+        pendingCount.incrementAndGet();
+        pushPending(t);
+        return t;
+    }
+
+    /**
+     * 与 ScheduledThreadPoolExecutor.triggerTime() 一样限制延迟的上限, 否则 nanoTime() + delay 以及计算 tick 时会溢出为过去的时间, 任务立即执行<br>
+     * 上限远超时间轮的范围, 这样的任务一直留在最高层反复 cascade
+     */
+    private static long capNanos(long nanos) {
+        return Math.min(nanos, MAX_DELAY_NANOS);
+    }
+
+    private void pushPending(Timeout t) {
+        for (; ; ) {
+            Timeout head = pending;
+            t.nextPending = head;
+            if (PENDING.compareAndSet(this, head, t)) return;
+        }
+    }
+
+    private void pushCancelled(Timeout t) {
+        for (; ; ) {
+            Timeout head = cancelled;
+            t.nextCancelled = head;
+            if (CANCELLED_STACK.compareAndSet(this, head, t)) return;
+        }
+    }
+
+    /**
+     * 停止 ticker 线程, 未到期的任务不再执行
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    /**
+     * 未到期 OR 周期性的任务数
+     */
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * 已经到期并交给 executor 的次数, 包括周期任务的每一次执行
+     */
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * executor 接受之后又丢弃的次数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    // ticker 线程 =====================================================================================================
+
+    private void runTicker() {
+        while (running) {
+            long next     = currentTick + 1;
+            long deadline = startTime + next * tickNanos;
+            long nanos;
+            while (running && (nanos = deadline - System.nanoTime()) > 0L) LockSupport.parkNanos(this, nanos);
+            if (!running) return;
+
+            // 落后时连续处理多个 tick
+            currentTick = next;
+            transferPending();
+            transferCancelled();
+            for (int level = wheels.length - 1; level > 0; level--) {
+                if ((next & ((1L << (bits * level)) - 1)) == 0L) cascade(level, next);
+            }
+            expire(wheels[0][(int) next & mask]);
+        }
+    }
+
+    private void transferPending() {
+        Timeout t = PENDING.getAndSet(this, null);
+        while (t != null) {
+            Timeout n = t.nextPending;
+            t.nextPending = null;
+            if (t.state == WAITING) {
+                long ticks = (t.deadline - startTime + tickNanos - 1) / tickNanos; // 向上取整, 不会提前执行
+                t.deadlineTick = Math.max(ticks, currentTick);
+                place(t);
+            }
+            t = n;
+        }
+    }
+
+    private void transferCancelled() {
+        Timeout t = CANCELLED_STACK.getAndSet(this, null);
+        while (t != null) {
+            Timeout n = t.nextCancelled;
+            t.nextCancelled = null;
+            if (t.bucket != null) t.bucket.remove(t); // 还在等待插入的栈中时, transferPending() 已经跳过了它
+            t = n;
+        }
+    }
+
+    /**
+     * 按照剩余的 tick 数放入对应的层, deadlineTick <= currentTick 的任务放入当前 tick 的槽, 在这个 tick 到期
+     */
+    private void place(Timeout t) {
+        long delta = t.deadlineTick - currentTick;
+        int  level = 0;
+        while (level < wheels.length - 1 && delta >= (1L << (bits * (level + 1)))) level++;
+        wheels[level][(int) (t.deadlineTick >>> (bits * level)) & mask].add(t);
+    }
+
+    /**
+     * 第 level 层的指针前进一格, 槽中的任务重新放入更低的层
+     */
+    private void cascade(int level, long tick) {
+        Timeout t = wheels[level][(int) (tick >>> (bits * level)) & mask].clear();
+        while (t != null) {
+            Timeout n = t.next;
+            t.bucket = null;
+            t.prev = t.next = null;
+            place(t);
+            t = n;
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout t = bucket.clear();
+        while (t != null) {
+            Timeout n = t.next;
+            t.bucket = null;
+            t.prev = t.next = null;
+            if (Timeout.STATE.compareAndSet(t, WAITING, EXPIRED)) dispatch(t);
+            t = n;
+        }
+    }
+
+    private void dispatch(Timeout t) {
+        expiredCount.increment();
+        if (t.period == 0L) pendingCount.decrementAndGet();
+        if (executor != null) {
+            try {
+                executor.execute(new Dispatch(t));
+                return;
+            } catch (RejectedExecutionException ignore) {
+                // executor 已满 OR 已经关闭, 在 ticker 线程中执行
+            }
+        }
+        t.fire();
+    }
+}
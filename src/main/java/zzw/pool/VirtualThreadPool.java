@@ -0,0 +1,123 @@
+package zzw.pool;
+
+import aqs.synchronization_tool.Semaphore;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>每个任务一个线程的线程池, JVM 支持虚拟线程(Java 21+)时使用虚拟线程, 否则退化为平台线程
+ * <p>并发度由项目的 Semaphore 限制, 而不是线程数: 任务线程先获取许可再执行, 最多 maxConcurrency 个任务同时运行
+ * <p>获取不到许可的任务线程阻塞在 Semaphore 上, 就是等待中的任务; 等待的任务数超过 maxWaiting 时抛出 RejectedExecutionException, 与 DefaultThreadPool 队列已满时的行为一致
+ * <p>项目的锁和同步工具都基于 AQS, 阻塞时调用 LockSupport.park(), 虚拟线程会让出载体线程, 不会 pin;
+ * 任务中使用 synchronized 块内阻塞 OR Object.wait() 在 Java 21 上依然会 pin 住载体线程, 应该换成 aqs.lock.ReentrantLock
+ * <p>pom 的编译目标是 Java 8, 虚拟线程由 VirtualThreads 创建: JDK 21 构建时打成多版本 jar, Java 21+ 上直接调用 Thread.ofVirtual()
+ * <p>不 pin 的结论可以用 thread_pool.Test16 在 Java 21 上重新验证
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+    private static final ThreadFactory VIRTUAL_FACTORY = VirtualThreads.newFactory("VirtualThreadPool-Task-"); // 不支持虚拟线程时为 null
+
+    /**
+     * 当前 JVM 是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    // =================================================================================================================
+
+    private final Semaphore     permits;
+    private final int           maxConcurrency;
+    private final int           maxWaiting;
+    private final ThreadFactory factory;
+    private final boolean       virtual;
+
+    private final AtomicInteger waiting   = new AtomicInteger(); // 已经启动但还没有获取到许可的任务
+    private final AtomicInteger active    = new AtomicInteger(); // 正在执行的任务
+    private final AtomicLong    threadNum = new AtomicLong();
+    private volatile boolean    isShutdown;
+
+    public VirtualThreadPool(int maxConcurrency, int maxWaiting) {
+        this(maxConcurrency, maxWaiting, true);
+    }
+
+    /**
+     * preferVirtual 为 false 时总是使用平台线程, 用于对比测试
+     */
+    public VirtualThreadPool(int maxConcurrency, int maxWaiting, boolean preferVirtual) {
+        if (maxConcurrency <= 0 || maxWaiting < 0) throw new IllegalArgumentException();
+        this.maxConcurrency = maxConcurrency;
+        this.maxWaiting = maxWaiting;
+        this.permits = new Semaphore(maxConcurrency, true); // 公平: 先启动的任务先执行
+        this.virtual = preferVirtual && VIRTUAL_FACTORY != null;
+        this.factory = virtual ? VIRTUAL_FACTORY : r -> new Thread(r, "VirtualThreadPool-Platform-" + threadNum.incrementAndGet());
+    }
+
+    // =================================================================================================================
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) throw new NullPointerException();
+        if (isShutdown) throw new RejectedExecutionException();
+
+        // 预占一个等待名额, 不加锁
+        for (; ; ) {
+            int w = waiting.get();
+            if (w >= maxWaiting && permits.availablePermits() == 0) throw new RejectedExecutionException();
+            if (waiting.compareAndSet(w, w + 1)) break;
+        }
+
+        try {
+            factory.newThread(() -> run(task)).start();
+        } catch (Throwable e) {
+            waiting.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task) {
+        permits.acquireUninterruptibly();
+        waiting.decrementAndGet();
+        active.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    /**
+     * 等待许可的任务数
+     */
+    @Override
+    public int getWaitingTaskCount() {
+        return waiting.get();
+    }
+
+    /**
+     * 不再接受新任务, 已经提交的任务继续执行
+     */
+    @Override
+    public void shutdown() {
+        isShutdown = true;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * 这个线程池创建的是否是虚拟线程
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+}
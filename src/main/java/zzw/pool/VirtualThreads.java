@@ -0,0 +1,31 @@
+package zzw.pool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>创建虚拟线程的 ThreadFactory, Java 8 的基础版本
+ * <p>JDK 21 构建时启用 pom 的 java21 profile, src/main/java21 中的同名类直接调用 Thread.ofVirtual(), 编译到 META-INF/versions/21,
+ * 在 Java 21+ 上从多版本 jar 加载时替换这个类
+ * <p>多版本 jar 只对 jar 生效, 从 target/classes 目录运行(IDE、mvn exec)时总是加载这个类, 所以这里保留反射作为后备, 而不是直接返回 null
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Thread.ofVirtual().name(prefix, 0).factory(), 不支持虚拟线程时返回 null
+     */
+    static ThreadFactory newFactory(String prefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object   builder      = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            Method   factory      = builderClass.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // Java 8 ~ 20, OR Java 19/20 没有开启 --enable-preview
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package zzw.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Chase-Lev 工作窃取双端队列
+ * <p>所有者线程在 bottom 端 push() / pop(), 后进先出, 刚提交的任务数据还在缓存中
+ * <p>其它线程在 top 端 steal(), 先进先出, 偷走的是最早提交的任务, 通常也是更大的任务
+ * <p>只有 top 需要 CAS: 窃取者之间竞争 top, 所有者只在队列只剩一个元素时才和窃取者竞争 top
+ * <p>数组满时由所有者扩容为两倍, 窃取者可能还在读旧数组, 旧数组中 [top, bottom) 的内容不会被修改, 所以读到的值依然正确
+ * <p>被窃取的槽位不会被清空, 会在所有者下一次写入该槽位时被覆盖
+ */
+class WorkStealingDeque<E> {
+
+    private static final int INITIAL_CAPACITY = 1 << 6;
+    private static final int MAXIMUM_CAPACITY = 1 << 26;
+
+    private final    AtomicLong              top = new AtomicLong(); // 窃取者读取的位置
+    private volatile long                    bottom;                 // 所有者写入的位置, 只有所有者修改
+    private volatile AtomicReferenceArray<E> array = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+
+    /**
+     * 只能由所有者线程调用
+     */
+    void push(E e) {
+        long                    b = bottom;
+        long                    t = top.get();
+        AtomicReferenceArray<E> a = array;
+        if (b - t >= a.length()) a = grow(a, t, b);
+        a.lazySet((int) b & (a.length() - 1), e);
+        bottom = b + 1; // volatile 写, 发布元素
+    }
+
+    /**
+     * 只能由所有者线程调用, 队列为空时返回 null
+     */
+    E pop() {
+        long b = bottom - 1;
+        bottom = b; // volatile 写之后再读 top, 与 steal() 中先读 top 再读 bottom 对应, 双方至少有一方能看到对方的修改
+        long t = top.get();
+        if (t > b) {
+            bottom = b + 1; // 已经为空
+            return null;
+        }
+
+        AtomicReferenceArray<E> a     = array;
+        int                     index = (int) b & (a.length() - 1);
+        E                       e     = a.get(index);
+        if (t < b) {
+            a.lazySet(index, null); // 不止一个元素, 窃取者不可能拿到下标 b
+            return e;
+        }
+
+        // 只剩最后一个元素, 与窃取者竞争 top
+        if (!top.compareAndSet(t, t + 1)) e = null;
+        else a.lazySet(index, null);
+        bottom = b + 1;
+        return e;
+    }
+
+    /**
+     * 任意线程调用, 队列为空 OR 与其它线程竞争失败时返回 null
+     */
+    E steal() {
+        long t = top.get();
+        long b = bottom;
+        if (t >= b) return null;
+
+        AtomicReferenceArray<E> a = array;
+        E                       e = a.get((int) t & (a.length() - 1));
+        return top.compareAndSet(t, t + 1) ? e : null;
+    }
+
+    /**
+     * 只能由所有者线程调用, 把 [t, b) 复制到两倍大小的新数组
+     */
+    private AtomicReferenceArray<E> grow(AtomicReferenceArray<E> old, long t, long b) {
+        int capacity = old.length() << 1;
+        if (capacity > MAXIMUM_CAPACITY) throw new IllegalStateException("deque capacity exceeded");
+
+        AtomicReferenceArray<E> a       = new AtomicReferenceArray<>(capacity);
+        int                     oldMask = old.length() - 1;
+        int                     mask    = capacity - 1;
+        for (long i = t; i < b; i++) a.lazySet((int) i & mask, old.get((int) i & oldMask));
+        array = a;
+        return a;
+    }
+
+    /**
+     * 近似值
+     */
+    int size() {
+        long size = bottom - top.get();
+        return (int) Math.max(0L, size);
+    }
+
+    boolean isEmpty() {
+        return bottom <= top.get();
+    }
+}
@@ -0,0 +1,249 @@
+package zzw.pool;
+
+import sun.misc.Unsafe;
+import zzw.ring.MpmcRingQueue;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>工作窃取线程池, 没有全局锁
+ * <p>每个 worker 有自己的 WorkStealingDeque, worker 线程内提交的任务放入自己的双端队列, 后进先出地执行
+ * <p>外部线程提交的任务放入共享的注入队列(MpmcRingQueue), 队列已满时抛出 RejectedExecutionException, 与 DefaultThreadPool 一致
+ * <p>worker 取任务的顺序: 自己的双端队列 -> 注入队列 -> 从随机的 victim 开始依次窃取其它 worker 的双端队列
+ * <p>找不到任务的 worker 先标记为空闲再重新扫描一遍, 然后 park; 提交任务后如果有空闲 worker 则唤醒一个, 不会丢失唤醒
+ * <p>shutdown() 之后不再接受新任务, worker 执行完所有已提交的任务后退出
+ * <p>invoke(RecursiveTask) 执行分治任务, 子任务 fork() 进入本地双端队列, join() 时 worker 帮助执行其它任务而不是阻塞
+ */
+public class WorkStealingThreadPool implements ThreadPool {
+
+    private final class Worker extends Thread {
+
+        private final WorkStealingDeque<Runnable> deque = new WorkStealingDeque<>();
+        private final AtomicBoolean               idle  = new AtomicBoolean();
+
+        Worker() {
+            super("WorkStealingPool-Worker-" + threadNum.incrementAndGet());
+        }
+
+        WorkStealingThreadPool pool() {
+            return WorkStealingThreadPool.this;
+        }
+
+        @Override
+        public void run() {
+            for (; ; ) {
+                Runnable task = findTask();
+                if (task == null) {
+                    if (!running) return; // 已经关闭并且没有剩余任务
+                    task = awaitTask();
+                    if (task == null) continue;
+                }
+                runTask(task);
+            }
+        }
+
+        private void runTask(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                // 不吞掉异常, 交给线程的 UncaughtExceptionHandler, worker 继续执行下一个任务
+                getUncaughtExceptionHandler().uncaughtException(this, e);
+            }
+        }
+
+        /**
+         * 直到 task 完成之前, 执行自己双端队列中的任务 OR 窃取其它 worker 的任务, 不 park
+         */
+        void helpJoin(RecursiveTask<?> task) {
+            while (!task.isDone()) {
+                Runnable t = deque.pop();
+                if (t == null) t = steal();
+                if (t != null) runTask(t);
+                else Thread.yield(); // task 已经被其它 worker 窃取, 正在执行
+            }
+        }
+
+        private Runnable findTask() {
+            Runnable task = deque.pop();
+            if (task == null) task = injection.poll();
+            if (task == null) task = steal();
+            return task;
+        }
+
+        /**
+         * 从随机的 victim 开始, 依次尝试窃取每一个 worker
+         */
+        private Runnable steal() {
+            final Worker[] workers = WorkStealingThreadPool.this.workers;
+            final int      n       = workers.length;
+            if (n == 1) return null;
+
+            int start = ThreadLocalRandom.current().nextInt(n);
+            for (int i = 0; i < n; i++) {
+                Worker victim = workers[(start + i) % n];
+                if (victim == this) continue;
+                Runnable task;
+                do {
+                    task = victim.deque.steal();
+                } while (task == null && !victim.deque.isEmpty()); // 与其它窃取者竞争失败, 重试
+                if (task != null) {
+                    stealCount.increment();
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 先标记为空闲再重新扫描, 与 signalWork() 先放入任务再检查空闲 worker 对应
+         */
+        private Runnable awaitTask() {
+            idle.set(true);
+            idleCount.incrementAndGet();
+
+            Runnable task = findTask();
+            if (task != null || !running) {
+                if (idle.compareAndSet(true, false)) idleCount.decrementAndGet();
+                return task;
+            }
+
+            // signalWork() OR shutdown() 会把 idle 改为 false 并 unpark
+            while (idle.get()) LockSupport.park(this);
+            return null;
+        }
+    }
+
+    // ==================================================================================
+
+    private static final int DEFAULT_INJECTION_QUEUE_SIZE = 1024;
+
+    private static final Unsafe unsafe;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = (Unsafe) field.get(null);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final Worker[]                workers;
+    private final MpmcRingQueue<Runnable> injection;
+    private final AtomicInteger           idleCount  = new AtomicInteger();
+    private final AtomicLong              threadNum  = new AtomicLong();
+    private final LongAdder               stealCount = new LongAdder();
+    private volatile boolean              running    = true;
+
+    public WorkStealingThreadPool() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_INJECTION_QUEUE_SIZE);
+    }
+
+    public WorkStealingThreadPool(int threadNum, int injectionQueueSize) {
+        if (threadNum <= 0) throw new IllegalArgumentException();
+        injection = new MpmcRingQueue<>(injectionQueueSize);
+        workers = new Worker[threadNum];
+        for (int i = 0; i < threadNum; i++) workers[i] = new Worker();
+        for (Worker worker : workers) worker.start(); // 所有字段初始化之后再启动
+    }
+
+    // ==================================================================================
+
+    /**
+     * 唤醒一个空闲 worker
+     */
+    private void signalWork() {
+        // 注入队列用 lazySet 发布任务, 读取 idleCount 之前需要 store-load 屏障, 否则可能与 awaitTask() 的重新扫描互相看不到对方
+        unsafe.fullFence();
+        if (idleCount.get() == 0) return;
+        for (Worker worker : workers) {
+            if (worker.idle.get() && worker.idle.compareAndSet(true, false)) {
+                idleCount.decrementAndGet();
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) throw new NullPointerException();
+        if (!running) throw new RejectedExecutionException();
+
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker && ((Worker) current).pool() == this) {
+            ((Worker) current).deque.push(task); // worker 内提交, 放入本地双端队列
+        } else if (!injection.offer(task)) {
+            throw new RejectedExecutionException();
+        }
+        signalWork();
+    }
+
+    /**
+     * 近似值
+     */
+    @Override
+    public int getWaitingTaskCount() {
+        int count = injection.size();
+        for (Worker worker : workers) count += worker.deque.size();
+        return count;
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        for (Worker worker : workers) {
+            if (worker.idle.compareAndSet(true, false)) idleCount.decrementAndGet();
+            LockSupport.unpark(worker);
+        }
+    }
+
+    // RecursiveTask =================================================================================================
+
+    /**
+     * 执行分治任务并等待结果, 在这个线程池的 worker 中调用时直接在当前线程执行<br>
+     * compute() 抛出的异常由 ExecutionException 抛出
+     */
+    public <V> V invoke(RecursiveTask<V> task) throws InterruptedException, ExecutionException {
+        if (task == null) throw new NullPointerException();
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker && ((Worker) current).pool() == this) return task.invoke();
+        return submit(task::invoke).get();
+    }
+
+    /**
+     * 当前 worker 所属的线程池, 不在 worker 中时抛出 IllegalStateException
+     */
+    static WorkStealingThreadPool currentWorkerPool() {
+        return currentWorker().pool();
+    }
+
+    static void helpJoin(RecursiveTask<?> task) {
+        currentWorker().helpJoin(task);
+    }
+
+    private static Worker currentWorker() {
+        Thread current = Thread.currentThread();
+        if (!(current instanceof Worker)) throw new IllegalStateException("not in a WorkStealingThreadPool worker");
+        return (Worker) current;
+    }
+
+    // =================================================================================================================
+
+    public int getWorkerNum() {
+        return workers.length;
+    }
+
+    public long getStealCount() {
+        return stealCount.sum();
+    }
+}
@@ -0,0 +1,83 @@
+package zzw.ring;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>RingBuffer 的消费者, 在自己的线程中运行 run()
+ * <p>waitFor() 返回可读的最大序号, 一次处理 [next, available] 之间的所有事件, 处理完整批之后才更新自己的序号
+ * <p>序号可以作为其它消费者的依赖(newBarrier(processor.getSequence())) OR 作为生产者的 gating 序号
+ * <p>handler 抛出的异常交给线程的 UncaughtExceptionHandler 后跳过该事件, 不会让整个消费链停下
+ * <p>状态 IDLE -> RUNNING 由 run() CAS 切换, 同一个 processor 只能在一个线程中运行; run() 之前的 halt() 不会丢失, 随后的 run() 直接返回
+ */
+public class BatchEventProcessor<E> implements Runnable {
+
+    private final RingBuffer<E>   ringBuffer;
+    private final SequenceBarrier barrier;
+    private final EventHandler<E> handler;
+
+    private static final int IDLE    = 0;
+    private static final int HALTED  = 1;
+    private static final int RUNNING = 2;
+
+    private final Sequence      sequence = new Sequence(); // 已经处理完的最大序号
+    private final AtomicInteger state    = new AtomicInteger(IDLE);
+
+    /**
+     * barrier 只能被这一个 processor 使用, halt() 会 alert() 它
+     */
+    public BatchEventProcessor(RingBuffer<E> ringBuffer, SequenceBarrier barrier, EventHandler<E> handler) {
+        this.ringBuffer = ringBuffer;
+        this.barrier = barrier;
+        this.handler = handler;
+    }
+
+    public Sequence getSequence() {
+        return sequence;
+    }
+
+    /**
+     * 处理完当前批次后停止; 在 run() 之前调用时, 随后的 run() 不处理任何事件直接返回
+     */
+    public void halt() {
+        state.set(HALTED);
+        barrier.alert();
+    }
+
+    public boolean isRunning() {
+        return state.get() == RUNNING;
+    }
+
+    @Override
+    public void run() {
+        if (!state.compareAndSet(IDLE, RUNNING)) {
+            if (state.get() == RUNNING) throw new IllegalStateException("already running");
+            state.compareAndSet(HALTED, IDLE); // 启动前已经被 halt(), 消耗掉这次 halt() 后直接返回
+            return;
+        }
+        try {
+            process();
+        } finally {
+            state.set(IDLE);
+        }
+    }
+
+    private void process() {
+        barrier.clearAlert(); // 在检查 state 之前清除, clearAlert() 之后的 halt() 不会丢失
+
+        long next = sequence.get() + 1;
+        while (state.get() == RUNNING) {
+            long available = barrier.waitFor(next);
+            if (available < next) continue; // 被 alert() 唤醒
+
+            for (; next <= available; next++) {
+                try {
+                    handler.onEvent(ringBuffer.get(next), next, next == available);
+                } catch (Exception e) {
+                    Thread t = Thread.currentThread();
+                    t.getUncaughtExceptionHandler().uncaughtException(t, e);
+                }
+            }
+            sequence.lazySet(available); // 整批处理完之后才归还, 减少对序号缓存行的写
+        }
+    }
+}
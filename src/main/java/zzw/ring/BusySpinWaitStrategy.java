@@ -0,0 +1,12 @@
+package zzw.ring;
+
+/**
+ * 忙等, 不让出 CPU
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public int idle(int counter) {
+        return counter + 1;
+    }
+}
@@ -0,0 +1,9 @@
+package zzw.ring;
+
+/**
+ * <p>RingBuffer 创建时调用, 为每个槽位预分配一个可变的事件对象, 之后槽位中的对象被反复复用
+ */
+public interface EventFactory<E> {
+
+    E newInstance();
+}
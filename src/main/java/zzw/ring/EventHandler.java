@@ -0,0 +1,13 @@
+package zzw.ring;
+
+/**
+ * <p>BatchEventProcessor 的回调, 在消费者线程中按序号顺序调用
+ * <p>事件对象属于 RingBuffer, 回调返回后可能被生产者覆盖, 不能在回调之外持有它的引用
+ */
+public interface EventHandler<E> {
+
+    /**
+     * endOfBatch 为 true 表示这是本批次中的最后一个事件, 可以在此时批量 flush
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch) throws Exception;
+}
@@ -0,0 +1,76 @@
+package zzw.ring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>多生产者多消费者(MPMC)无锁有界队列, Dmitry Vyukov 的有界队列算法
+ * <p>每个槽位有自己的序号 sequences[i], 初始为 i
+ * <p>生产者: sequences[t & mask] == t 说明槽位空闲, CAS tail 抢占后写入元素, 再把槽位序号设为 t + 1 发布元素
+ * <p>消费者: sequences[h & mask] == h + 1 说明元素已经发布, CAS head 抢占后读取元素, 再把槽位序号设为 h + capacity 归还空位
+ * <p>槽位序号同时保证了元素的可见性, 元素本身不需要 volatile
+ */
+public class MpmcRingQueue<E> extends RingQueue<E> {
+
+    private final AtomicLongArray sequences;
+
+    private final Sequence tail = new Sequence(0L); // 下一个写入的序号, 生产者 CAS 修改
+    private final Sequence head = new Sequence(0L); // 下一个读取的序号, 消费者 CAS 修改
+
+    public MpmcRingQueue(int capacity) {
+        this(capacity, WaitStrategy.YIELDING);
+    }
+
+    public MpmcRingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        sequences = new AtomicLongArray(buffer.length);
+        for (int i = 0; i < buffer.length; i++) sequences.lazySet(i, i);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+
+        for (; ; ) {
+            long t     = tail.get();
+            int  index = (int) t & mask;
+            long dif   = sequences.get(index) - t;
+            if (dif == 0L) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    buffer[index] = e;
+                    sequences.lazySet(index, t + 1); // 发布元素
+                    return true;
+                }
+            } else if (dif < 0L) {
+                return false; // 已满, 槽位还没有被上一轮的消费者归还
+            }
+            // dif > 0, 其它生产者已经抢占了序号 t, 重新读取 tail
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        for (; ; ) {
+            long h     = head.get();
+            int  index = (int) h & mask;
+            long dif   = sequences.get(index) - (h + 1);
+            if (dif == 0L) {
+                if (head.compareAndSet(h, h + 1)) {
+                    E e = (E) buffer[index];
+                    buffer[index] = null;
+                    sequences.lazySet(index, h + buffer.length); // 归还空位
+                    return e;
+                }
+            } else if (dif < 0L) {
+                return null; // 为空, 元素还没有被发布
+            }
+            // dif > 0, 其它消费者已经抢占了序号 h, 重新读取 head
+        }
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0L, Math.min(size, buffer.length));
+    }
+}
@@ -0,0 +1,91 @@
+package zzw.ring;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+/**
+ * <p>多生产者单消费者(MPSC)无锁有界队列
+ * <p>生产者 CAS tail 抢占序号, 然后用 putOrderedObject() 写入元素, 元素不为 null 说明已经发布
+ * <p>消费者抢不到元素时区分两种情况: head == tail 为空; head < tail 说明生产者已经抢占序号但还没有写入元素, 此时返回 null, 稍后重试
+ * <p>只有消费者修改 head, 不需要 CAS
+ */
+public class MpscRingQueue<E> extends RingQueue<E> {
+
+    private static final Unsafe unsafe;
+    private static final long   arrayBase;
+    private static final int    arrayShift;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = (Unsafe) field.get(null);
+
+            arrayBase = unsafe.arrayBaseOffset(Object[].class);
+            int scale = unsafe.arrayIndexScale(Object[].class);
+            arrayShift = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final Sequence tail      = new Sequence(0L); // 下一个抢占的序号, 生产者 CAS 修改
+    private final Sequence head      = new Sequence(0L); // 下一个读取的序号, 只有消费者修改
+    private final Sequence headCache = new Sequence(0L); // 生产者缓存的 head, 可能比 head 小, 只用于快速判断未满
+
+    public MpscRingQueue(int capacity) {
+        this(capacity, WaitStrategy.YIELDING);
+    }
+
+    public MpscRingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    private long offset(long sequence) {
+        return arrayBase + (((int) sequence & mask) << arrayShift);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+
+        long t;
+        do {
+            t = tail.get();
+            if (t - headCache.get() >= buffer.length) {
+                long h = head.get();
+                if (t - h >= buffer.length) return false; // 已满
+                headCache.lazySet(h);
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+
+        unsafe.putOrderedObject(buffer, offset(t), e); // 发布元素
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final long h      = head.get();
+        final long offset = offset(h);
+        E          e      = (E) unsafe.getObjectVolatile(buffer, offset);
+        if (e == null) {
+            if (h == tail.get()) return null; // 为空
+            // 生产者已经抢占了序号 h, 等待它写入元素
+            do {
+                e = (E) unsafe.getObjectVolatile(buffer, offset);
+            } while (e == null);
+        }
+
+        unsafe.putOrderedObject(buffer, offset, null);
+        head.lazySet(h + 1); // 归还空位
+        return e;
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0L, Math.min(size, buffer.length));
+    }
+}
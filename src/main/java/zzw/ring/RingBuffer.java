@@ -0,0 +1,166 @@
+package zzw.ring;
+
+/**
+ * <p>Disruptor 风格的单生产者多播环形缓冲区
+ * <p>创建时用 EventFactory 预分配所有槽位的事件对象, 生产者修改槽位中的对象而不是放入新对象, 发布事件没有内存分配
+ * <p>生产者: next() 申请序号 -> get() 取出槽位中的事件并修改 -> publish() 发布, cursor 为已经发布的最大序号
+ * <p>消费者: 每个消费者有自己的序号, 所有消费者都会读到每一个事件(多播), 不需要为每个消费者复制一份队列
+ * <p>gating sequences: 生产者只有在所有 gating 消费者都处理完序号 n - bufferSize 之后, 才能覆盖序号 n 的槽位
+ * <p>只允许一个生产者线程调用 next() / publish()
+ */
+public class RingBuffer<E> {
+
+    private final Object[]     entries;
+    private final int          mask;
+    private final WaitStrategy waitStrategy;
+
+    private final Sequence cursor = new Sequence(); // 已经发布的最大序号, 初始为 -1
+
+    // 只有生产者线程访问
+    private final Sequence nextValue   = new Sequence(); // 已经申请的最大序号
+    private final Sequence cachedValue = new Sequence(); // 缓存的 gating 序号最小值
+
+    private volatile Sequence[] gatingSequences = new Sequence[0];
+
+    public RingBuffer(EventFactory<E> factory, int bufferSize) {
+        this(factory, bufferSize, WaitStrategy.YIELDING);
+    }
+
+    /**
+     * waitStrategy 同时用于生产者等待空位和消费者等待事件
+     */
+    public RingBuffer(EventFactory<E> factory, int bufferSize, WaitStrategy waitStrategy) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) throw new IllegalArgumentException("bufferSize must be a power of 2");
+        if (factory == null || waitStrategy == null) throw new NullPointerException();
+        this.entries = new Object[bufferSize];
+        for (int i = 0; i < bufferSize; i++) entries[i] = factory.newInstance();
+        this.mask = bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    // gating =========================================================================================================
+
+    /**
+     * 添加 gating 序号, 生产者不会覆盖这些消费者还没有处理的事件<br>
+     * 通常只需要添加依赖链末端的消费者, 必须在生产者发布事件之前添加
+     */
+    public synchronized void addGatingSequences(Sequence... sequences) {
+        Sequence[] current = gatingSequences;
+        Sequence[] updated = new Sequence[current.length + sequences.length];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i].set(cursor.get()); // 从当前位置开始消费
+            updated[current.length + i] = sequences[i];
+        }
+        gatingSequences = updated;
+    }
+
+    public synchronized boolean removeGatingSequence(Sequence sequence) {
+        Sequence[] current = gatingSequences;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == sequence) {
+                Sequence[] updated = new Sequence[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                gatingSequences = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 创建消费者屏障, dependents 为空时只等待生产者
+     */
+    public SequenceBarrier newBarrier(Sequence... dependents) {
+        return new SequenceBarrier(cursor, dependents.clone(), waitStrategy);
+    }
+
+    // 生产者 =========================================================================================================
+
+    /**
+     * 申请下一个序号, 没有空位时按 WaitStrategy 等待
+     */
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * 批量申请 n 个序号, 返回其中最大的序号, 申请到的序号为 [返回值 - n + 1, 返回值]
+     */
+    public long next(int n) {
+        if (n < 1 || n > entries.length) throw new IllegalArgumentException();
+
+        long next      = nextValue.get() + n;
+        long wrapPoint = next - entries.length; // 覆盖序号 next 之前, 消费者必须已经处理完 wrapPoint
+        if (wrapPoint > cachedValue.get()) {
+            long min;
+            for (int counter = 0; wrapPoint > (min = minimumGatingSequence()); ) {
+                counter = waitStrategy.idle(counter);
+            }
+            cachedValue.lazySet(min);
+        }
+        nextValue.lazySet(next);
+        return next;
+    }
+
+    /**
+     * 不等待地申请下一个序号, 没有空位时返回 -1
+     */
+    public long tryNext() {
+        long next      = nextValue.get() + 1;
+        long wrapPoint = next - entries.length;
+        if (wrapPoint > cachedValue.get()) {
+            long min = minimumGatingSequence();
+            cachedValue.lazySet(min);
+            if (wrapPoint > min) return -1L;
+        }
+        nextValue.lazySet(next);
+        return next;
+    }
+
+    private long minimumGatingSequence() {
+        long min = nextValue.get();
+        for (Sequence sequence : gatingSequences) min = Math.min(min, sequence.get());
+        return min;
+    }
+
+    /**
+     * 取出序号对应槽位中的事件, 生产者在 next() 和 publish() 之间修改它, 消费者在 waitFor() 之后读取它
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    /**
+     * 发布序号 sequence 及之前的所有事件
+     */
+    public void publish(long sequence) {
+        cursor.lazySet(sequence); // 之前对事件的修改不会被重排序到这次写入之后
+    }
+
+    /**
+     * 批量发布 [lo, hi], 单生产者下等价于 publish(hi)
+     */
+    public void publish(long lo, long hi) {
+        publish(hi);
+    }
+
+    // =================================================================================================================
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public int getBufferSize() {
+        return entries.length;
+    }
+
+    /**
+     * 剩余空位的近似值
+     */
+    public long remainingCapacity() {
+        return entries.length - (nextValue.get() - minimumGatingSequence());
+    }
+}
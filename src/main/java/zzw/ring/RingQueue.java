@@ -0,0 +1,67 @@
+package zzw.ring;
+
+/**
+ * <p>基于数组的无锁有界队列, 容量向上取整为 2 的幂, 下标 = 序号 & mask
+ * <p>offer() / poll() 不阻塞, 队列已满 OR 为空时立即返回
+ * <p>put() / take() 在队列已满 OR 为空时按 WaitStrategy 等待, 等待期间响应中断
+ */
+public abstract class RingQueue<E> {
+
+    protected final Object[]     buffer;
+    protected final int          mask;
+    protected final WaitStrategy waitStrategy;
+
+    protected RingQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > (1 << 30)) throw new IllegalArgumentException();
+        if (waitStrategy == null) throw new NullPointerException();
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 入队, 队列已满时返回 false
+     */
+    public abstract boolean offer(E e);
+
+    /**
+     * 出队, 队列为空时返回 null
+     */
+    public abstract E poll();
+
+    /**
+     * 近似值, 并发修改时只是某一时刻的估计
+     */
+    public abstract int size();
+
+    /**
+     * 入队, 队列已满时按 WaitStrategy 等待
+     */
+    public void put(E e) throws InterruptedException {
+        if (e == null) throw new NullPointerException();
+        for (int counter = 0; !offer(e); counter = waitStrategy.idle(counter)) {
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    /**
+     * 出队, 队列为空时按 WaitStrategy 等待
+     */
+    public E take() throws InterruptedException {
+        E e;
+        for (int counter = 0; (e = poll()) == null; counter = waitStrategy.idle(counter)) {
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        return e;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+}
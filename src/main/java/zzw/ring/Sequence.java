@@ -0,0 +1,81 @@
+package zzw.ring;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+class LhsPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class Value extends LhsPadding {
+    protected volatile long value;
+}
+
+class RhsPadding extends Value {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * <p>填充过的 long 序号, 前后各 7 个 long 的填充保证 value 独占一个缓存行, 避免伪共享
+ * <p>生产者的序号和消费者的序号被不同的线程频繁修改, 如果位于同一个缓存行, 每次修改都会使对方的缓存行失效
+ * <p>lazySet() 只保证写入不会被重排序到之前的写入之前(store-store 屏障), 比 volatile 写更轻量
+ */
+public class Sequence extends RhsPadding {
+
+    private static final Unsafe unsafe;
+    private static final long   valueOffset;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = (Unsafe) field.get(null);
+
+            valueOffset = unsafe.objectFieldOffset(Value.class.getDeclaredField("value"));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public Sequence() {
+        this(-1L);
+    }
+
+    public Sequence(long initialValue) {
+        unsafe.putOrderedLong(this, valueOffset, initialValue);
+    }
+
+    public long get() {
+        return value;
+    }
+
+    public void set(long value) {
+        this.value = value;
+    }
+
+    public void lazySet(long value) {
+        unsafe.putOrderedLong(this, valueOffset, value);
+    }
+
+    public boolean compareAndSet(long expect, long update) {
+        return unsafe.compareAndSwapLong(this, valueOffset, expect, update);
+    }
+
+    public long incrementAndGet() {
+        return addAndGet(1L);
+    }
+
+    public long addAndGet(long increment) {
+        long current, next;
+        do {
+            current = get();
+            next = current + increment;
+        } while (!compareAndSet(current, next));
+        return next;
+    }
+
+    public String toString() {
+        return Long.toString(get());
+    }
+}
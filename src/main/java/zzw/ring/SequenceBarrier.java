@@ -0,0 +1,55 @@
+package zzw.ring;
+
+/**
+ * <p>消费者的等待屏障: 等待生产者发布的序号(cursor)以及所依赖的消费者处理完的序号
+ * <p>依赖为空时只等待生产者; 消费者 B 依赖消费者 A 时, B 只能读取 A 已经处理完的事件
+ * <p>alert() 唤醒等待中的消费者, 用于停止 BatchEventProcessor
+ * <p>每个 BatchEventProcessor 使用自己的屏障(依赖相同时也要分别 newBarrier()): 共享屏障时 halt() 一个消费者会让其它消费者的 waitFor() 一直立即返回, 变成空转
+ */
+public class SequenceBarrier {
+
+    private final Sequence     cursor;
+    private final Sequence[]   dependents;
+    private final WaitStrategy waitStrategy;
+
+    private volatile boolean alerted;
+
+    SequenceBarrier(Sequence cursor, Sequence[] dependents, WaitStrategy waitStrategy) {
+        this.cursor = cursor;
+        this.dependents = dependents;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 等待序号 sequence 可读, 返回当前可读的最大序号(可能大于 sequence, 用于批量读取)<br>
+     * 被 alert() 时立即返回, 此时返回值可能小于 sequence
+     */
+    public long waitFor(long sequence) {
+        long available;
+        for (int counter = 0; (available = getAvailable()) < sequence; counter = waitStrategy.idle(counter)) {
+            if (alerted) break;
+        }
+        return available;
+    }
+
+    /**
+     * 生产者发布的序号和所有依赖的消费者序号中的最小值
+     */
+    private long getAvailable() {
+        long available = cursor.get();
+        for (Sequence dependent : dependents) available = Math.min(available, dependent.get());
+        return available;
+    }
+
+    public void alert() {
+        alerted = true;
+    }
+
+    public void clearAlert() {
+        alerted = false;
+    }
+
+    public boolean isAlerted() {
+        return alerted;
+    }
+}
@@ -0,0 +1,47 @@
+package zzw.ring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>先自旋 spinTries 次, 再 yield yieldTries 次, 之后 parkNanos(), park 时间从 minParkNanos 开始指数增长到 maxParkNanos
+ * <p>不需要生产者唤醒, 等待者最多晚 maxParkNanos 发现数据, 用延迟换 CPU
+ */
+public class SpinThenParkWaitStrategy implements WaitStrategy {
+
+    private final int  spinTries;
+    private final int  yieldTries;
+    private final long minParkNanos;
+    private final long maxParkNanos;
+
+    public SpinThenParkWaitStrategy() {
+        this(100, 10, TimeUnit.MICROSECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    public SpinThenParkWaitStrategy(int spinTries, int yieldTries, long minPark, long maxPark, TimeUnit unit) {
+        this(spinTries, yieldTries, unit.toNanos(minPark), unit.toNanos(maxPark));
+    }
+
+    private SpinThenParkWaitStrategy(int spinTries, int yieldTries, long minParkNanos, long maxParkNanos) {
+        if (spinTries < 0 || yieldTries < 0 || minParkNanos <= 0 || maxParkNanos < minParkNanos) throw new IllegalArgumentException();
+        this.spinTries = spinTries;
+        this.yieldTries = yieldTries;
+        this.minParkNanos = minParkNanos;
+        this.maxParkNanos = maxParkNanos;
+    }
+
+    @Override
+    public int idle(int counter) {
+        if (counter < spinTries) {
+            // 自旋
+        } else if (counter < spinTries + yieldTries) {
+            Thread.yield();
+        } else {
+            int  shift = Math.min(counter - spinTries - yieldTries, 62);
+            long nanos = minParkNanos << shift;
+            if (nanos <= 0 || nanos > maxParkNanos || (nanos >> shift) != minParkNanos) nanos = maxParkNanos; // overflow
+            LockSupport.parkNanos(this, nanos);
+        }
+        return counter + 1;
+    }
+}
@@ -0,0 +1,63 @@
+package zzw.ring;
+
+/**
+ * <p>单生产者单消费者(SPSC)无锁有界队列
+ * <p>只有生产者修改 tail, 只有消费者修改 head, 不需要 CAS, lazySet() 发布即可
+ * <p>生产者缓存 head, 消费者缓存 tail, 只有缓存的值显示队列已满 OR 为空时才读取对方的序号, 减少缓存行在两个核之间来回传递
+ */
+public class SpscRingQueue<E> extends RingQueue<E> {
+
+    private final Sequence tail = new Sequence(0L); // 下一个写入的序号, 只有生产者修改
+    private final Sequence head = new Sequence(0L); // 下一个读取的序号, 只有消费者修改
+
+    // 缓存也用 Sequence 填充, 避免生产者的缓存和消费者的缓存位于同一个缓存行
+    private final Sequence headCache = new Sequence(0L); // 生产者缓存的 head, 只有生产者访问
+    private final Sequence tailCache = new Sequence(0L); // 消费者缓存的 tail, 只有消费者访问
+
+    public SpscRingQueue(int capacity) {
+        this(capacity, WaitStrategy.YIELDING);
+    }
+
+    public SpscRingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+
+        final long t = tail.get();
+        if (t - headCache.get() >= buffer.length) {
+            long h = head.get();
+            headCache.lazySet(h);
+            if (t - h >= buffer.length) return false; // 已满
+        }
+
+        buffer[(int) t & mask] = e;
+        tail.lazySet(t + 1); // 发布元素
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final long h = head.get();
+        if (h >= tailCache.get()) {
+            long t = tail.get();
+            tailCache.lazySet(t);
+            if (h >= t) return null; // 为空
+        }
+
+        final int index = (int) h & mask;
+        E         e     = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(h + 1); // 归还空位
+        return e;
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0L, Math.min(size, buffer.length));
+    }
+}
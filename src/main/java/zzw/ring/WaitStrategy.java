@@ -0,0 +1,23 @@
+package zzw.ring;
+
+/**
+ * <p>无锁队列的等待策略, 队列为空(消费者) OR 队列已满(生产者)时调用
+ * <p>同一个数据结构通过不同的等待策略, 既可以用于延迟敏感的场景(忙等), 也可以用于节省 CPU 的场景(自旋后阻塞)
+ */
+public interface WaitStrategy {
+
+    /**
+     * 等待一次, counter 为本轮等待已经调用 idle() 的次数(从 0 开始), 返回 counter + 1
+     */
+    int idle(int counter);
+
+    /**
+     * 忙等: 延迟最低, 但会占满一个 CPU, 适合线程数不超过 CPU 核数且绑核的场景
+     */
+    WaitStrategy BUSY_SPIN = new BusySpinWaitStrategy();
+
+    /**
+     * 自旋一段时间后 yield: 延迟低, 其它线程需要 CPU 时会让出 CPU
+     */
+    WaitStrategy YIELDING = new YieldingWaitStrategy(100);
+}
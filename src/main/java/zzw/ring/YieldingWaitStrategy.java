@@ -0,0 +1,19 @@
+package zzw.ring;
+
+/**
+ * 先自旋 spinTries 次, 之后每次等待调用 Thread.yield()
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+    private final int spinTries;
+
+    public YieldingWaitStrategy(int spinTries) {
+        this.spinTries = spinTries;
+    }
+
+    @Override
+    public int idle(int counter) {
+        if (counter >= spinTries) Thread.yield();
+        return counter + 1;
+    }
+}
@@ -0,0 +1,17 @@
+package zzw.pool;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>创建虚拟线程的 ThreadFactory, Java 21 版本, 编译到多版本 jar 的 META-INF/versions/21
+ * <p>与 src/main/java 中的基础版本签名相同, Java 21+ 上从 jar 加载时替换基础版本, 不需要反射
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static ThreadFactory newFactory(String prefix) {
+        return Thread.ofVirtual().name(prefix, 0).factory();
+    }
+}
@@ -0,0 +1,54 @@
+package aqs;
+
+import aqs.synchronization_tool.LifoSemaphore;
+import zzw.Util;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试 LifoSemaphore
+ * <p>1 个许可, 10 个线程依次到达并排队, 许可被释放时最后到达的线程最先获取许可
+ * <p>等待超过 maxWait 的线程会被丢弃
+ */
+public class Test11 {
+
+    private static final LifoSemaphore semaphore = new LifoSemaphore(1, 1500, TimeUnit.MILLISECONDS);
+
+    private static class MyThread extends Thread {
+        @Override
+        public void run() {
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RejectedExecutionException e) {
+                System.err.println(Thread.currentThread().getName() + " 被丢弃");
+                return;
+            }
+            try {
+                System.out.println(Thread.currentThread().getName() + " 获取许可");
+                Util.sleep(300);
+            } finally {
+                semaphore.release();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        semaphore.acquire(); // 主线程先占用许可
+
+        for (int i = 0; i < 10; i++) {
+            MyThread thread = new MyThread();
+            thread.setName("Thread-" + i);
+            thread.start();
+            Util.sleep(10);
+        }
+
+        semaphore.release(); // Thread-9 最先获取许可, Thread-8、Thread-7 ... 依次获取, 排队过久的线程被丢弃
+
+        Util.sleep(3000);
+        System.out.println(semaphore);
+        System.out.println("peak = " + semaphore.getPeakQueueLength() + ", shed = " + semaphore.getShedCount());
+    }
+}
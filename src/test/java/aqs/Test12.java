@@ -0,0 +1,46 @@
+package aqs;
+
+import aqs.synchronization_tool.PriorityBulkhead;
+import zzw.Util;
+
+/**
+ * <p>测试 PriorityBulkhead
+ * <p>总许可 4, 第 0 类(关键流量)保留 1 个许可, 第 1 类(批处理)最多持有 3 个许可
+ * <p>批处理线程占满共享许可后, 关键流量仍然可以使用保留许可; 共享许可被释放时优先给关键流量
+ */
+public class Test12 {
+
+    private static final int CRITICAL = 0;
+    private static final int BATCH    = 1;
+
+    private static final PriorityBulkhead bulkhead = new PriorityBulkhead(4, new int[]{1, 0}, new int[]{4, 3});
+
+    private static Thread start(String name, int priorityClass, long millis) {
+        Thread thread = new Thread(() -> {
+            bulkhead.acquireUninterruptibly(priorityClass);
+            try {
+                System.out.println(Thread.currentThread().getName() + " 获取许可");
+                Util.sleep(millis);
+            } finally {
+                bulkhead.release(priorityClass);
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int i = 0; i < 6; i++) start("batch-" + i, BATCH, 500);
+        Util.sleep(100);
+
+        for (int i = 0; i < 3; i++) start("critical-" + i, CRITICAL, 500);
+        Util.sleep(100);
+
+        // critical-? 使用保留许可, batch 占用 3 个共享许可, 其余线程排队
+        System.out.println(bulkhead);
+
+        Util.sleep(3000);
+        System.out.println(bulkhead);
+        System.out.println("critical acquired = " + bulkhead.getAcquiredCount(CRITICAL) + ", batch acquired = " + bulkhead.getAcquiredCount(BATCH));
+    }
+}
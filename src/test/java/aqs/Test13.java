@@ -0,0 +1,38 @@
+package aqs;
+
+import zzw.BlockingQueueRing;
+import zzw.QueueDebugHook;
+
+/**
+ * <p>测试 BlockingQueueRing
+ * <p>PrintHook 在解锁之后打印日志并等待 IO 完成, 不再占用锁
+ */
+@SuppressWarnings("all")
+public class Test13 {
+
+    public static void main(String[] args) {
+        BlockingQueueRing<Integer> queue = new BlockingQueueRing<>(1);
+        queue.setDebugHook(new QueueDebugHook.PrintHook<>(100));
+
+        Runnable r = new Runnable() {
+            @Override
+            public void run() {
+                while (true) queue.dequeue();
+            }
+        };
+        Runnable w = new Runnable() {
+            private int num = 1;
+
+            @Override
+            public void run() {
+                while (true) queue.enqueue(num++);
+            }
+        };
+
+
+        Thread rt = new Thread(r);
+        Thread wt = new Thread(w);
+        rt.start();
+        wt.start();
+    }
+}
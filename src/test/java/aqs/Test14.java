@@ -0,0 +1,39 @@
+package aqs;
+
+import zzw.LongBlockingQueue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试 LongBlockingQueue
+ * <p>生产者逐个 enqueue(), 消费者 drainTo(long[]) 批量取出, 整个过程不装箱
+ */
+@SuppressWarnings("all")
+public class Test14 {
+
+    public static void main(String[] args) throws InterruptedException {
+        LongBlockingQueue queue = new LongBlockingQueue(16);
+        final int         n     = 1_000_000;
+
+        Thread wt = new Thread(() -> {
+            for (long i = 1; i <= n; i++) queue.enqueue(i);
+        });
+        wt.start();
+
+        long[] buffer = new long[64];
+        long   sum    = 0;
+        for (int received = 0; received < n; ) {
+            int count = queue.drainTo(buffer, 0, buffer.length, 1, TimeUnit.SECONDS);
+            for (int i = 0; i < count; i++) sum += buffer[i];
+            received += count;
+        }
+        wt.join();
+        System.out.println(sum == (long) n * (n + 1) / 2); // true
+
+        // 超时
+        System.out.println(queue.poll(10, TimeUnit.MILLISECONDS, -1L)); // -1
+        for (int i = 0; i < queue.getCapacity(); i++) queue.enqueue(i);
+        System.out.println(queue.offer(16, 10, TimeUnit.MILLISECONDS)); // false
+        System.out.println(queue.poll(10, TimeUnit.MILLISECONDS, -1L) + " " + queue.getSize()); // 0 15
+    }
+}
@@ -0,0 +1,33 @@
+package aqs;
+
+import zzw.MappedBlockingQueue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * <p>测试 MappedBlockingQueue
+ * <p>写入 10 个元素后读取 4 个, 关闭后重新打开, 从第 5 个元素继续读取
+ */
+@SuppressWarnings("all")
+public class Test15 {
+
+    public static void main(String[] args) throws IOException {
+        File dir = Files.createTempDirectory("mapped-queue-test").toFile(); // 每次运行使用新目录, 不读到上次运行留下的段
+
+        MappedBlockingQueue queue = new MappedBlockingQueue(dir, 64, 4, 1);
+        for (int i = 0; i < 10; i++) queue.enqueue(("msg-" + i).getBytes());
+        for (int i = 0; i < 4; i++) System.out.println("读取 " + new String(queue.dequeue()));
+        queue.close();
+
+        queue = new MappedBlockingQueue(dir, 64, 4, 1);
+        System.out.println("重启后剩余 " + queue.getSize());
+        while (queue.getSize() > 0) System.out.println("读取 " + new String(queue.dequeue()));
+        queue.close();
+
+        File[] files = dir.listFiles();
+        if (files != null) for (File file : files) file.delete();
+        dir.delete();
+    }
+}
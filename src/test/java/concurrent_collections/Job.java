@@ -36,12 +36,12 @@ public class Job implements Delayed, Runnable {
     }
 
     /**
-     * 最小堆
+     * 最小堆<br>
+     * 不能把两个 long 的差强转为 int, 差值超过 int 范围时符号会出错; 两次 getDelay() 之间时间也在流逝, 直接比较终止时间
      */
     @Override
     public int compareTo(Delayed o) {
-        return (int) (
-            this.getDelay(TimeUnit.NANOSECONDS) - o.getDelay(TimeUnit.NANOSECONDS)
-        );
+        if (o instanceof Job) return Long.compare(endTime, ((Job) o).endTime);
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
     }
 }
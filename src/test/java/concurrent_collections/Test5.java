@@ -0,0 +1,66 @@
+package concurrent_collections;
+
+import zzw.ring.BatchEventProcessor;
+import zzw.ring.RingBuffer;
+import zzw.ring.SequenceBarrier;
+import zzw.ring.WaitStrategy;
+
+/**
+ * <p>测试 RingBuffer 多播: 日志和复制并行消费同一个事件, 业务逻辑依赖于两者都处理完
+ * <pre>
+ * producer -> journaler  -\
+ *          -> replicator -+-> business
+ * </pre>
+ */
+@SuppressWarnings("all")
+public class Test5 {
+
+    /**
+     * 可变事件, 槽位中的对象被反复复用
+     */
+    private static class ValueEvent {
+        long value;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        RingBuffer<ValueEvent> ringBuffer = new RingBuffer<>(ValueEvent::new, 8, WaitStrategy.YIELDING);
+
+        // 依赖相同, 但每个 processor 使用自己的屏障, halt() 一个不会影响另一个
+        BatchEventProcessor<ValueEvent> journaler = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> System.out.println("journal   " + sequence + " = " + event.value + (endOfBatch ? " (flush)" : "")));
+        BatchEventProcessor<ValueEvent> replicator = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> System.out.println("replicate " + sequence + " = " + event.value));
+
+        SequenceBarrier businessBarrier = ringBuffer.newBarrier(journaler.getSequence(), replicator.getSequence());
+        long[] sum = new long[1];
+        BatchEventProcessor<ValueEvent> business = new BatchEventProcessor<>(ringBuffer, businessBarrier,
+                (event, sequence, endOfBatch) -> sum[0] += event.value);
+
+        // 只需要等待依赖链的末端
+        ringBuffer.addGatingSequences(business.getSequence());
+
+        Thread[] threads = {new Thread(journaler), new Thread(replicator), new Thread(business)};
+        for (Thread thread : threads) thread.start();
+
+        for (long i = 1; i <= 100; i++) {
+            long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).value = i;
+            ringBuffer.publish(sequence);
+        }
+
+        while (business.getSequence().get() < ringBuffer.getCursor()) Thread.yield();
+        journaler.halt();
+        replicator.halt();
+        business.halt();
+        for (Thread thread : threads) thread.join();
+
+        System.out.println("sum = " + sum[0]); // 5050
+
+        // 启动前 halt() 不会丢失: run() 直接返回, 而不是一直等待新的事件
+        BatchEventProcessor<ValueEvent> early = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> System.out.println("不应该执行"));
+        early.halt();
+        early.run();
+        System.out.println("halt before run: running = " + early.isRunning()); // false
+    }
+}
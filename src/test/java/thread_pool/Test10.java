@@ -0,0 +1,51 @@
+package thread_pool;
+
+import zzw.Util;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.SaturationPolicy;
+import zzw.pool.ThreadPoolMetrics;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>测试 DefaultThreadPool 的饱和策略: 1 个 worker, 队列容量 2, 每个任务 20 ms, 一次提交 10 个任务
+ * <p>ABORT 拒绝大部分任务; CALLER_RUNS 全部执行, 一部分在提交者线程中执行; DISCARD_OLDEST 只有最后提交的任务被执行;
+ * block 全部执行, 提交者被阻塞; throttle 全部执行, 提交者按排队时间暂停
+ */
+public class Test10 {
+
+    private static void run(SaturationPolicy policy) {
+        DefaultThreadPool pool = new DefaultThreadPool(1, 1, 2, 10, TimeUnit.SECONDS, policy);
+        AtomicInteger     ran  = new AtomicInteger();
+        pool.setBatchSize(1); // 任务留在队列中, 排队时间可见
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            try {
+                pool.execute(() -> {
+                    Util.sleep(20);
+                    ran.incrementAndGet();
+                });
+            } catch (RejectedExecutionException ignore) {
+            }
+        }
+        long submitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Util.sleep(300);
+
+        ThreadPoolMetrics m = pool.getMetrics();
+        System.out.printf("%-20s ran=%2d submit=%3dms rejected=%d callerRuns=%d discarded=%d blocked=%d throttled=%d%n",
+                policy, ran.get(), submitMillis, m.getRejectedCount(), m.getCallerRunsCount(), m.getDiscardedCount(),
+                m.getBlockedCount(), m.getThrottledCount());
+        pool.shutdown();
+    }
+
+    public static void main(String[] args) {
+        run(SaturationPolicy.ABORT);
+        run(SaturationPolicy.CALLER_RUNS);
+        run(SaturationPolicy.DISCARD_OLDEST);
+        run(SaturationPolicy.block(1, TimeUnit.SECONDS));
+        run(SaturationPolicy.throttle(10, 50, TimeUnit.MILLISECONDS));
+    }
+}
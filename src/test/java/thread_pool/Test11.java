@@ -0,0 +1,46 @@
+package thread_pool;
+
+import zzw.Util;
+import zzw.pool.CoDel;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.ThreadPoolMetrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>测试 DefaultThreadPool 的 CoDel: 1 个 worker, 每个任务 4 ms, 每 2 ms 提交一个任务, 持续 1 秒, 负载是处理能力的 2 倍
+ * <p>不启用 CoDel 时排队时间持续增长; DROP 丢弃排队过久的任务, 执行的任务排队时间被控制在 target 附近;
+ * LIFO 优先执行新任务, 大部分任务的排队时间很短
+ */
+public class Test11 {
+
+    private static void run(CoDel codel) {
+        DefaultThreadPool pool = new DefaultThreadPool(1, 1, 10_000, 10, TimeUnit.SECONDS);
+        pool.setBatchSize(1);
+        pool.setCoDel(codel);
+
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (System.nanoTime() < end) {
+            pool.execute(() -> Util.sleep(4));
+            Util.sleep(2);
+        }
+        pool.shutdown();
+
+        ThreadPoolMetrics m = pool.getMetrics();
+        System.out.printf("%-45s completed=%3d shed=%3d queue=%3d wait p50=%4dms p99=%4dms%n",
+                codel == null ? "FIFO" : codel, m.getCompletedCount(), m.getShedCount(), m.getQueueDepth(),
+                TimeUnit.NANOSECONDS.toMillis(m.getWaitTime().getPercentileNanos(0.5)),
+                TimeUnit.NANOSECONDS.toMillis(m.getWaitTime().getPercentileNanos(0.99)));
+    }
+
+    public static void main(String[] args) {
+        run(null);
+
+        AtomicInteger failFast = new AtomicInteger();
+        run(new CoDel(5, 100, TimeUnit.MILLISECONDS, CoDel.Mode.DROP, task -> failFast.incrementAndGet()));
+        System.out.println("onDrop: " + failFast.get());
+
+        run(new CoDel(CoDel.Mode.LIFO));
+    }
+}
@@ -0,0 +1,67 @@
+package thread_pool;
+
+import zzw.Util;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.TaskFuture;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试 DefaultThreadPool 的 EDF 调度: 1 个 worker 被第一个任务占用 50 ms, 期间提交截止时间乱序的任务
+ * <p>worker 空闲后按截止时间从早到晚执行, 截止时间在 50 ms 之内的任务已经过期, 被丢弃, 它们的 Future 被取消
+ * <p>已经被 worker 批量取出的任务在执行前再检查一次截止时间, 等待同一批前面的任务时过期的任务也被丢弃
+ */
+public class Test12 {
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        DefaultThreadPool pool = new DefaultThreadPool(1, 1, 100, 10, TimeUnit.SECONDS);
+        pool.setBatchSize(1);
+        pool.execute(() -> Util.sleep(50));
+        Util.sleep(5);
+
+        long   now       = System.nanoTime();
+        long[] deadlines = {300, 100, 20, 200, 10, 400};
+        TaskFuture<?>[] futures = new TaskFuture<?>[deadlines.length];
+        for (int i = 0; i < deadlines.length; i++) {
+            final long d = deadlines[i];
+            futures[i] = new TaskFuture<>(() -> System.out.println("deadline " + d + " ms"), null);
+            pool.execute(futures[i], now + TimeUnit.MILLISECONDS.toNanos(d));
+        }
+        pool.execute(() -> System.out.println("没有截止时间")); // 隐式截止时间 1 s, 最后执行
+
+        // 100, 200, 300, 400, 没有截止时间
+        Util.sleep(200);
+        for (int i = 0; i < deadlines.length; i++) {
+            try {
+                futures[i].get();
+            } catch (CancellationException e) {
+                System.out.println("过期: " + deadlines[i] + " ms"); // 20, 10
+            }
+        }
+        System.out.println("expired: " + pool.getMetrics().getExpiredCount()); // 2
+        pool.shutdown();
+
+        expiredInBatch();
+    }
+
+    /**
+     * worker 被占用 50 ms, 之后一次取出 slow 和 fast; slow 执行 80 ms, fast 的截止时间 120 ms 在等待 slow 时已经过去
+     */
+    private static void expiredInBatch() throws InterruptedException {
+        DefaultThreadPool pool = new DefaultThreadPool(1, 1, 100, 10, TimeUnit.SECONDS);
+        pool.execute(() -> Util.sleep(50));
+        Util.sleep(5);
+
+        long          now  = System.nanoTime();
+        TaskFuture<?> fast = new TaskFuture<>(() -> System.out.println("不应该执行: fast"), null);
+        pool.execute(() -> Util.sleep(80), now + TimeUnit.MILLISECONDS.toNanos(100));
+        pool.execute(fast, now + TimeUnit.MILLISECONDS.toNanos(120));
+
+        Util.sleep(200);
+        System.out.println("fast cancelled: " + fast.isCancelled()); // true
+        System.out.println("expired: " + pool.getMetrics().getExpiredCount()); // 1
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,82 @@
+package thread_pool;
+
+import zzw.Util;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.SaturationPolicy;
+import zzw.pool.TimingWheelScheduler;
+import zzw.pool.TimingWheelScheduler.Timeout;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>测试 TimingWheelScheduler: 延迟任务按到期时间执行, 最多晚一个 tick; 取消的任务不执行
+ * <p>wheelSize = 8 的小时间轮, 300 ms 的任务需要从第 2 层 cascade 到第 0 层
+ * <p>fixed-rate 每 20 ms 执行一次, fixed-delay 每次执行 10 ms 后再等 20 ms
+ * <p>300 天和 Long.MAX_VALUE 纳秒的任务不会因为溢出而立即执行
+ * <p>executor 接受之后又丢弃(DISCARD_OLDEST)的一次性任务被取消, 周期任务跳过这一次之后继续执行
+ */
+public class Test13 {
+
+    public static void main(String[] args) {
+        DefaultThreadPool    pool      = new DefaultThreadPool(2, 4, 100, 10, TimeUnit.SECONDS);
+        TimingWheelScheduler scheduler = new TimingWheelScheduler(pool, 1, TimeUnit.MILLISECONDS, 8, 4);
+
+        final long start = System.nanoTime();
+        for (long delay : new long[]{300, 5, 70, 20, 150}) {
+            scheduler.schedule(() -> System.out.printf("delay %3d ms, 实际 %3d ms%n",
+                    delay, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)), delay, TimeUnit.MILLISECONDS);
+        }
+        Timeout cancelled = scheduler.schedule(() -> System.out.println("不应该执行"), 100, TimeUnit.MILLISECONDS);
+        System.out.println("cancel: " + cancelled.cancel()); // true
+
+        // 超出时间轮范围的延迟留在最高层, 溢出的延迟被限制, 都不会立即执行
+        Timeout far = scheduler.schedule(() -> System.out.println("不应该执行: 300 天"), 300, TimeUnit.DAYS);
+        Timeout max = scheduler.schedule(() -> System.out.println("不应该执行: Long.MAX_VALUE"), Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        AtomicInteger rate  = new AtomicInteger();
+        AtomicInteger delay = new AtomicInteger();
+        Timeout fixedRate = scheduler.scheduleAtFixedRate(rate::incrementAndGet, 0, 20, TimeUnit.MILLISECONDS);
+        Timeout fixedDelay = scheduler.scheduleWithFixedDelay(() -> {
+            delay.incrementAndGet();
+            Util.sleep(10);
+        }, 0, 20, TimeUnit.MILLISECONDS);
+
+        Util.sleep(400);
+        fixedRate.cancel();
+        fixedDelay.cancel();
+        System.out.println("300 天: " + far.isExpired() + ", Long.MAX_VALUE: " + max.isExpired()); // false, false
+        far.cancel();
+        max.cancel();
+        System.out.println("fixed-rate: " + rate.get() + ", fixed-delay: " + delay.get()); // 约 20, 约 13
+        System.out.println("pending: " + scheduler.getPendingCount()); // 0
+
+        scheduler.shutdown();
+        pool.shutdown();
+
+        droppedDispatch();
+    }
+
+    /**
+     * 1 个 worker 被占用 100 ms, 队列长度 1: 10 ms 的 a 排队, 20 ms 的 p 挤掉 a, 30 ms 的 c 挤掉 p, p 在 40 ms 重新到期挤掉 c
+     */
+    private static void droppedDispatch() {
+        DefaultThreadPool    pool      = new DefaultThreadPool(1, 1, 1, 10, TimeUnit.SECONDS, SaturationPolicy.DISCARD_OLDEST);
+        TimingWheelScheduler scheduler = new TimingWheelScheduler(pool, 1, TimeUnit.MILLISECONDS, 8, 4);
+
+        pool.execute(() -> Util.sleep(100));
+        AtomicInteger runs = new AtomicInteger();
+        Timeout a = scheduler.schedule(() -> System.out.println("不应该执行: a"), 10, TimeUnit.MILLISECONDS);
+        Timeout p = scheduler.scheduleAtFixedRate(runs::incrementAndGet, 20, 20, TimeUnit.MILLISECONDS);
+        Timeout c = scheduler.schedule(() -> System.out.println("不应该执行: c"), 30, TimeUnit.MILLISECONDS);
+
+        Util.sleep(200);
+        p.cancel();
+        System.out.println("a: " + a.isCancelled() + ", c: " + c.isCancelled()); // true, true
+        System.out.println("periodic runs: " + runs.get()); // > 0
+        System.out.println("dropped: " + scheduler.getDroppedCount() + ", pending: " + scheduler.getPendingCount()); // 3, 0
+
+        scheduler.shutdown();
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,34 @@
+package thread_pool;
+
+import zzw.Util;
+import zzw.pool.DefaultThreadPool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>测试 DefaultThreadPool 的空闲自旋: 最多 1 个 worker 在 park 之前自旋 20 ms, 每隔 5 ms 提交一个任务
+ * <p>自旋的 worker 直接取走任务, 提交者不需要唤醒; 空闲超过 20 ms 后 worker 照常 park, 仍然可以被唤醒
+ */
+public class Test14 {
+
+    public static void main(String[] args) {
+        DefaultThreadPool pool = new DefaultThreadPool(2, 2, 100, 10, TimeUnit.SECONDS);
+        pool.setIdleSpin(20, TimeUnit.MILLISECONDS, 1);
+        AtomicInteger done = new AtomicInteger();
+
+        for (int i = 0; i < 20; i++) {
+            pool.execute(done::incrementAndGet);
+            Util.sleep(5);
+        }
+        Util.sleep(50); // 自旋超时, worker park
+        pool.execute(done::incrementAndGet);
+        Util.sleep(10);
+
+        System.out.println("done: " + done.get()); // 21
+        System.out.println("hits: " + pool.getMetrics().getSpinHits()); // 接近 20
+        System.out.println("misses: " + pool.getMetrics().getSpinMisses());
+        System.out.println(pool.getMetrics());
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,42 @@
+package thread_pool;
+
+import zzw.Util;
+import zzw.limit.AdaptiveLimiter;
+import zzw.limit.AimdLimit;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.LimitedThreadPool;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试 LimitedThreadPool: 2 个 worker, 每个任务执行 5 ms, 初始 limit 20, rtt 超过 20 ms 时 limit 减半
+ * <p>提交者不停提交, 排队让 rtt 超过 20 ms, limit 收缩到 rtt 不再超时的水平, 多出来的任务被立即拒绝
+ * <p>shutdown() 时还在 delegate 中排队的任务被取消, 它们持有的许可被归还, inflight 回到 0
+ */
+public class Test15 {
+
+    public static void main(String[] args) {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(new AimdLimit(20, 2, 50, 0.5, 20, TimeUnit.MILLISECONDS));
+        LimitedThreadPool pool = new LimitedThreadPool(new DefaultThreadPool(2, 2, 1000, 10, TimeUnit.SECONDS), limiter);
+
+        int accepted = 0, rejected = 0;
+        long end = System.currentTimeMillis() + 500;
+        while (System.currentTimeMillis() < end) {
+            try {
+                pool.execute(() -> Util.sleep(5));
+                accepted++;
+            } catch (RejectedExecutionException e) {
+                rejected++;
+                Util.sleep(1);
+            }
+        }
+        System.out.println("accepted=" + accepted + " rejected=" + rejected);
+        System.out.println(limiter); // limit 从 20 收缩, 收缩前获取的许可让 inflight 暂时超过 limit
+
+        pool.shutdown();
+        Util.sleep(20);
+        System.out.println("shutdown 之后 inflight=" + limiter.getInflight()
+                + " available=" + limiter.availablePermits() + " limit=" + limiter.getLimit()); // inflight=0, available=limit
+    }
+}
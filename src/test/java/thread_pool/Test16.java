@@ -0,0 +1,110 @@
+package thread_pool;
+
+import aqs.Condition;
+import aqs.lock.ReentrantLock;
+import zzw.Util;
+import zzw.pool.VirtualThreadPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>可以重复运行的 pin 检查: 验证 VirtualThreadPool 的任务持有 aqs.lock.ReentrantLock 阻塞时不会 pin 住载体线程
+ * <p>在创建第一个虚拟线程之前设置 jdk.tracePinnedThreads=full, JDK 在虚拟线程 pin 住载体线程时把栈打印到 System.out
+ * <p>System.out 被同时写入缓冲区: aqs 的 Lock / Condition 阻塞期间缓冲区必须没有输出; synchronized 块内 sleep 作为对照, 必须有输出,
+ * 证明追踪确实生效(JDK 24+ 的 synchronized 不再 pin, OR 不支持 jdk.tracePinnedThreads 时对照没有输出, 检查被跳过)
+ * <p>不支持虚拟线程(Java 8 ~ 20)时跳过; aqs 的阻塞被追踪到 pin 时抛出 AssertionError
+ */
+public class Test16 {
+
+    /**
+     * 写入原来的 System.out, 同时复制一份到 buffer
+     */
+    private static final class Tee extends OutputStream {
+        final PrintStream           out;
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        Tee(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            out.write(b);
+            buffer.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            out.write(b, off, len);
+            buffer.write(b, off, len);
+        }
+
+        synchronized String drain() {
+            out.flush();
+            String s = buffer.toString();
+            buffer.reset();
+            return s;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("jdk.tracePinnedThreads", "full"); // 必须在第一个虚拟线程创建之前
+        if (!VirtualThreadPool.isVirtualThreadSupported()) {
+            System.out.println("跳过: 当前 JVM 不支持虚拟线程");
+            return;
+        }
+
+        PrintStream stdout = System.out;
+        Tee         tee    = new Tee(stdout);
+        System.setOut(new PrintStream(tee, true));
+        VirtualThreadPool pool = new VirtualThreadPool(100, 1000);
+        try {
+            // 持有项目的锁时 await() 和 lock() 竞争阻塞, 都只调用 LockSupport.park()
+            ReentrantLock  lock      = new ReentrantLock();
+            Condition      condition = lock.newCondition();
+            CountDownLatch locked    = new CountDownLatch(200);
+            for (int i = 0; i < 200; i++) {
+                pool.execute(() -> {
+                    lock.lock();
+                    try {
+                        condition.awaitNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                    } catch (InterruptedException ignore) {
+                    } finally {
+                        lock.unlock();
+                    }
+                    locked.countDown();
+                });
+            }
+            locked.await();
+            String aqsTrace = tee.drain();
+
+            // 对照: synchronized 块内 sleep
+            Object         monitor = new Object();
+            CountDownLatch pinned  = new CountDownLatch(1);
+            pool.execute(() -> {
+                synchronized (monitor) {
+                    Util.sleep(20);
+                }
+                pinned.countDown();
+            });
+            pinned.await();
+            String controlTrace = tee.drain();
+
+            System.setOut(stdout);
+            if (controlTrace.isEmpty()) {
+                System.out.println("跳过: synchronized 对照没有 pin 输出, 当前 JVM 不追踪 OR 不会 pin");
+            } else if (!aqsTrace.isEmpty()) {
+                throw new AssertionError("aqs.lock.ReentrantLock 阻塞时 pin 住了载体线程:\n" + aqsTrace);
+            } else {
+                System.out.println("aqs.lock: 没有 pin; synchronized 对照: pin"); // 通过
+            }
+        } finally {
+            System.setOut(stdout);
+            pool.shutdown();
+        }
+    }
+}
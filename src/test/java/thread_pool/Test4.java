@@ -0,0 +1,38 @@
+package thread_pool;
+
+import zzw.Util;
+import zzw.pool.DefaultThreadPool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试 DefaultThreadPool 的弹性伸缩
+ * <p>突发流量时 worker 数从 1 扩容到 maximumPoolSize, 流量结束后空闲 keepAlive 缩容到 corePoolSize
+ */
+public class Test4 {
+
+    public static void main(String[] args) {
+        DefaultThreadPool pool = new DefaultThreadPool(2, 8, 1000, 200, TimeUnit.MILLISECONDS);
+        System.out.println("启动: " + pool.getWorkerNum()); // 1
+
+        // 突发流量: 每个任务耗时 10 ms, 排队延迟很快超过 5 ms
+        for (int i = 0; i < 200; i++) pool.execute(() -> Util.sleep(10));
+        Util.sleep(100);
+        System.out.println("突发: " + pool.getWorkerNum() + ", 等待任务: " + pool.getWaitingTaskCount()); // 8
+
+        // 流量结束, 非核心 worker 空闲 200 ms 后退出
+        Util.sleep(1000);
+        System.out.println("空闲: " + pool.getWorkerNum() + ", 峰值: " + pool.getPeakWorkerNum()); // 2, 8
+
+        // 运行时调整
+        pool.setMaximumPoolSize(4);
+        pool.setCorePoolSize(4);
+        for (int i = 0; i < 100; i++) pool.execute(() -> Util.sleep(10));
+        Util.sleep(100);
+        System.out.println("调整后: " + pool.getWorkerNum()); // 4
+
+        pool.shutdown();
+        Util.sleep(100);
+        System.out.println("关闭: " + pool.getWorkerNum()); // 0
+    }
+}
@@ -0,0 +1,71 @@
+package thread_pool;
+
+import zzw.Util;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.TaskFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <p>测试 ThreadPool.submit() / invokeAll() / invokeAny() 和 TaskFuture.whenComplete()
+ */
+public class Test5 {
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        DefaultThreadPool pool = new DefaultThreadPool(4, 100);
+
+        // submit + get
+        TaskFuture<Integer> future = pool.submit(() -> 1 + 2);
+        System.out.println("submit: " + future.get()); // 3
+
+        // 任务的异常不再被吞掉, 由 get() 抛出
+        TaskFuture<Integer> failed = pool.submit(() -> {
+            throw new ArithmeticException("/ by zero");
+        });
+        try {
+            failed.get();
+        } catch (ExecutionException e) {
+            System.out.println("异常: " + e.getCause()); // ArithmeticException
+        }
+
+        // 注册时还没有完成, 回调由完成任务的 worker 线程执行
+        pool.submit(() -> {
+            Util.sleep(50);
+            return "hello";
+        }).whenComplete((value, e) ->
+                System.out.println("回调: " + value + " in " + Thread.currentThread().getName()));
+
+        // invokeAll: 一次加锁放入所有任务
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            final int n = i;
+            tasks.add(() -> {
+                Util.sleep(10L * n);
+                return n * n;
+            });
+        }
+        int sum = 0;
+        for (TaskFuture<Integer> f : pool.invokeAll(tasks)) sum += f.get();
+        System.out.println("invokeAll: " + sum); // 55
+
+        // invokeAny: 返回最快完成的结果, 其余任务被取消
+        System.out.println("invokeAny: " + pool.invokeAny(tasks)); // 1
+
+        pool.shutdown();
+
+        // shutdown() 时排在忙碌 worker 后面的任务不再执行, 它的 Future 被取消, get() 不会永远阻塞
+        DefaultThreadPool single = new DefaultThreadPool(1, 100);
+        single.execute(() -> Util.sleep(50));
+        TaskFuture<String> queued = single.submit(() -> "never");
+        single.shutdown();
+        try {
+            queued.get();
+        } catch (CancellationException e) {
+            System.out.println("shutdown: cancelled=" + queued.isCancelled()); // true
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package thread_pool;
+
+import zzw.Util;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.ThreadPoolMetrics;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试 DefaultThreadPool 的执行指标
+ * <p>监控线程不加任务锁轮询队列深度和忙碌比例, 任务结束后打印等待时间和运行时间的分布
+ */
+public class Test6 {
+
+    public static void main(String[] args) {
+        DefaultThreadPool pool    = new DefaultThreadPool(2, 4, 50, 1, TimeUnit.SECONDS);
+        ThreadPoolMetrics metrics = pool.getMetrics();
+
+        Thread monitor = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                System.out.printf("queue=%d busy=%.2f completed=%d%n",
+                        metrics.getQueueDepth(), metrics.getBusyRatio(), metrics.getCompletedCount());
+                Util.sleep(50);
+            }
+        });
+        monitor.start();
+
+        for (int i = 0; i < 200; i++) {
+            final int n = i;
+            try {
+                pool.execute(() -> {
+                    Util.sleep(n % 5);
+                    if (n % 50 == 0) throw new IllegalStateException("task " + n);
+                });
+            } catch (RejectedExecutionException e) {
+                // 队列已满, 计入 rejected
+            }
+        }
+
+        Util.sleep(1000);
+        System.out.println(metrics);
+        System.out.println("p99 wait(us): " + metrics.getWaitTime().getPercentileNanos(0.99) / 1000);
+        pool.shutdown();
+    }
+}
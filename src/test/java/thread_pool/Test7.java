@@ -0,0 +1,69 @@
+package thread_pool;
+
+import aqs.Condition;
+import aqs.lock.ReentrantLock;
+import zzw.Util;
+import zzw.pool.VirtualThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试 VirtualThreadPool: 阻塞型任务的吞吐量由 Semaphore 的许可数决定, 而不是线程数
+ * <p>持有 aqs.lock.ReentrantLock 时阻塞不会 pin, synchronized 块内阻塞会 pin; 由 Test16 在 Java 21 上用 jdk.tracePinnedThreads 自动检查
+ * <p>Java 8 上退化为平台线程, 结果相同, 只是每个任务的线程开销更大
+ */
+public class Test7 {
+
+    private static final int TASKS = 10_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        VirtualThreadPool pool = new VirtualThreadPool(1000, TASKS);
+        System.out.println("虚拟线程: " + pool.isVirtual());
+
+        // 每个任务阻塞 50 ms, 1000 个许可: 约 10 * 50 ms
+        CountDownLatch done  = new CountDownLatch(TASKS);
+        long           start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            pool.execute(() -> {
+                Util.sleep(50);
+                done.countDown();
+            });
+        }
+        done.await();
+        System.out.println("阻塞任务: " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+        // 项目的锁: 在锁内 await(), 虚拟线程 park 时让出载体线程
+        ReentrantLock  lock      = new ReentrantLock();
+        Condition      condition = lock.newCondition();
+        CountDownLatch locked    = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            pool.execute(() -> {
+                lock.lock();
+                try {
+                    condition.awaitNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                } catch (InterruptedException ignore) {
+                } finally {
+                    lock.unlock();
+                }
+                locked.countDown();
+            });
+        }
+        locked.await();
+        System.out.println("aqs.lock: 完成");
+
+        // 对照: synchronized 块内阻塞, Java 21 上会 pin 住载体线程
+        Object         monitor = new Object();
+        CountDownLatch pinned  = new CountDownLatch(1);
+        pool.execute(() -> {
+            synchronized (monitor) {
+                Util.sleep(20);
+            }
+            pinned.countDown();
+        });
+        pinned.await();
+        System.out.println("synchronized: 完成");
+
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,54 @@
+package thread_pool;
+
+import zzw.pool.RecursiveTask;
+import zzw.pool.WorkStealingThreadPool;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <p>测试 RecursiveTask 的 fork() / join(): 递归计算斐波那契数, join() 的 worker 帮助执行其它任务, 4 个 worker 不会因为等待子任务而死锁
+ * <p>子任务的异常在 join() 时重新抛出, 最终由 invoke() 以 ExecutionException 抛出
+ */
+public class Test8 {
+
+    static class Fib extends RecursiveTask<Integer> {
+        final int n;
+
+        Fib(int n) {
+            this.n = n;
+        }
+
+        protected Integer compute() {
+            if (n <= 1) return n;
+            Fib f1 = new Fib(n - 1);
+            f1.fork();
+            Fib f2 = new Fib(n - 2);
+            return f2.compute() + f1.join();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        WorkStealingThreadPool pool = new WorkStealingThreadPool(4, 16);
+
+        try {
+            System.out.println("fib(25) = " + pool.invoke(new Fib(25))); // 75025
+            System.out.println("steal: " + pool.getStealCount());
+
+            pool.invoke(new RecursiveTask<Integer>() {
+                protected Integer compute() {
+                    RecursiveTask<Integer> child = new RecursiveTask<Integer>() {
+                        protected Integer compute() {
+                            throw new IllegalStateException("child failed");
+                        }
+                    };
+                    child.fork();
+                    return child.join();
+                }
+            });
+        } catch (ExecutionException e) {
+            System.out.println("异常: " + e.getCause()); // IllegalStateException: child failed
+        }
+
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,107 @@
+package thread_pool;
+
+import aqs.synchronization_tool.CountDownLatch;
+import zzw.pool.DefaultThreadPool;
+import zzw.pool.KeyedThreadPool;
+import zzw.pool.SaturationPolicy;
+import zzw.pool.TaskFuture;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试 KeyedThreadPool: 8 个账户, 每个账户 10000 个事件, 4 个 worker
+ * <p>同一个账户的事件按提交顺序执行, 不需要加锁; 所有事件执行完后 KeyQueue 全部被删除
+ * <p>热点 key 在 CALLER_RUNS 且队列已满的 delegate 上执行 100000 个任务, 不会栈溢出
+ * <p>delegate 丢弃 KeyQueue 后, 这个 key 的任务被取消, 之后提交的任务照常执行
+ */
+public class Test9 {
+
+    private static final int ACCOUNTS   = 8;
+    private static final int EVENTS     = 10_000;
+    private static final int HOT_EVENTS = 100_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        KeyedThreadPool pool = new KeyedThreadPool(new DefaultThreadPool(4, 4, 1000, 10, TimeUnit.SECONDS));
+
+        final int[]          last     = new int[ACCOUNTS]; // 只被对应账户的任务访问
+        final int[]          disorder = new int[ACCOUNTS];
+        final CountDownLatch latch    = new CountDownLatch(ACCOUNTS * EVENTS);
+        for (int i = 1; i <= EVENTS; i++) {
+            for (int a = 0; a < ACCOUNTS; a++) {
+                final int account = a, seq = i;
+                pool.execute("account-" + account, () -> {
+                    if (last[account] + 1 != seq) disorder[account]++;
+                    last[account] = seq;
+                    latch.countDown();
+                });
+            }
+        }
+        latch.await();
+        Thread.sleep(10); // 等最后一批的 KeyQueue 删除自己
+
+        int total = 0;
+        for (int d : disorder) total += d;
+        System.out.println("乱序: " + total);             // 0
+        System.out.println("key: " + pool.getKeyCount()); // 0
+        pool.shutdown();
+
+        hotKeyCallerRuns();
+        droppedKeyQueue();
+    }
+
+    /**
+     * delegate 队列已满且为 CALLER_RUNS 时, 重新提交的 KeyQueue 在当前线程执行: 热点 key 的 100000 个任务循环执行完, 不会栈溢出
+     */
+    private static void hotKeyCallerRuns() throws InterruptedException {
+        DefaultThreadPool delegate = new DefaultThreadPool(1, 1, 1, 10, TimeUnit.SECONDS, SaturationPolicy.CALLER_RUNS);
+        KeyedThreadPool   pool     = new KeyedThreadPool(delegate, 1);
+
+        final CountDownLatch gate  = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(HOT_EVENTS);
+        pool.execute("hot", () -> {
+            try {
+                gate.await();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        for (int i = 0; i < HOT_EVENTS; i++) pool.execute("hot", latch::countDown);
+        while (delegate.getWaitingTaskCount() > 0) Thread.sleep(1); // worker 已经取出 KeyQueue
+        delegate.execute(() -> {
+        }); // 占满 delegate 的队列, 之后每次重新提交都由 worker 自己执行
+        gate.countDown();
+
+        latch.await();
+        Thread.sleep(10);
+        System.out.println("hot key: " + pool.getKeyCount()); // 0
+        pool.shutdown();
+    }
+
+    /**
+     * DISCARD_OLDEST 的 delegate 丢弃了排队中的 KeyQueue: 这个 key 已经提交的任务被取消, 之后提交的任务照常执行, key 不会卡住
+     */
+    private static void droppedKeyQueue() throws InterruptedException {
+        DefaultThreadPool delegate = new DefaultThreadPool(1, 1, 1, 10, TimeUnit.SECONDS, SaturationPolicy.DISCARD_OLDEST);
+        KeyedThreadPool   pool     = new KeyedThreadPool(delegate);
+
+        final CountDownLatch gate = new CountDownLatch(1);
+        delegate.execute(() -> {
+            try {
+                gate.await();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        while (delegate.getWaitingTaskCount() > 0) Thread.sleep(1); // worker 被占用
+
+        TaskFuture<String> queued = new TaskFuture<>(() -> "never");
+        pool.execute("k", queued);  // KeyQueue 在 delegate 中排队
+        delegate.execute(() -> {
+        });                        // 队列已满, 丢弃最老的 KeyQueue
+        System.out.println("dropped: cancelled=" + queued.isCancelled() + ", key=" + pool.getKeyCount()); // true, 0
+
+        final CountDownLatch after = new CountDownLatch(1);
+        pool.execute("k", after::countDown);
+        gate.countDown();
+        System.out.println("之后的任务执行: " + after.await(1, TimeUnit.SECONDS)); // true
+        pool.shutdown();
+    }
+}